@@ -0,0 +1,72 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartFormat;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de {@link CYKAlgorithm#algorithmStateToString}: la versión que
+ * devuelve un String frente a la que escribe la tabla en un canal, en los dos
+ * formatos. El canal descarta lo que recibe para medir sólo la generación.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartRenderBenchmark {
+
+    @Param({"dyck", "ambigua"})
+    public String lenguaje;
+
+    @Param({"10", "100", "1000"})
+    public int longitud;
+
+    private CYKAlgorithm cyk;
+    private String palabra;
+    private WritableByteChannel descarte;
+
+    @Setup(Level.Trial)
+    public void preparar() throws CYKAlgorithmException {
+        cyk = GrammarGenerator.clasica(lenguaje);
+        cyk.freeze();
+        palabra = WordGenerator.palabra(lenguaje, longitud, new Random(42));
+        descarte = Channels.newChannel(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public String cadena() throws CYKAlgorithmException {
+        return cyk.algorithmStateToString(palabra);
+    }
+
+    @Benchmark
+    public void canalDenso() throws CYKAlgorithmException, IOException {
+        cyk.algorithmStateToString(palabra, descarte, ChartFormat.DENSE);
+    }
+
+    @Benchmark
+    public void canalDisperso() throws CYKAlgorithmException, IOException {
+        cyk.algorithmStateToString(palabra, descarte, ChartFormat.SPARSE);
+    }
+}
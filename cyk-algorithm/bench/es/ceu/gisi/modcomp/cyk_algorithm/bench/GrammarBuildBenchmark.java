@@ -0,0 +1,65 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de construir una gramática aleatoria con la API de
+ * {@link CYKAlgorithm} y de compilarla.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarBuildBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int noTerminales;
+
+    /**
+     * Probabilidad de cada regla binaria posible.
+     */
+    @Param({"0.01", "0.1"})
+    public double densidad;
+
+    private CYKAlgorithm construida;
+
+    @Setup(Level.Trial)
+    public void preparar() throws CYKAlgorithmException {
+        construida = GrammarGenerator.aleatoria(noTerminales, 8, densidad, 42);
+    }
+
+    /**
+     * Construye la gramática y la compila.
+     */
+    @Benchmark
+    public CompiledGrammar construirYCompilar() throws CYKAlgorithmException {
+        return GrammarGenerator.aleatoria(noTerminales, 8, densidad, 42).compile();
+    }
+
+    /**
+     * Sólo compila una gramática ya construida.
+     */
+    @Benchmark
+    public CompiledGrammar compilar() {
+        return construida.compile();
+    }
+}
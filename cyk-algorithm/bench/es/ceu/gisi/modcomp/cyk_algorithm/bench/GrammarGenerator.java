@@ -0,0 +1,120 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Random;
+
+/**
+ * Gramáticas en FNC para los benchmarks: lenguajes clásicos con palabras de
+ * cualquier longitud y gramáticas aleatorias de tamaño y densidad
+ * controlados.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class GrammarGenerator {
+
+    private GrammarGenerator() {
+    }
+
+    /**
+     * Lenguajes disponibles en {@link #clasica(String)}.
+     */
+    public static final String ANBN = "anbn";
+    public static final String DYCK = "dyck";
+    public static final String PALINDROMOS = "palindromos";
+    public static final String AMBIGUA = "ambigua";
+
+    /**
+     * @param lenguaje Uno de {@link #ANBN}, {@link #DYCK},
+     * {@link #PALINDROMOS} o {@link #AMBIGUA}.
+     * @return La gramática del lenguaje.
+     * @throws CYKAlgorithmException Si el lenguaje no existe.
+     */
+    public static CYKAlgorithm clasica(String lenguaje) throws CYKAlgorithmException {
+        switch (lenguaje) {
+            case ANBN:
+                // a^n b^n, n >= 1.
+                return construir("SATB", "ab", "S::=AB|AT", "T::=SB", "A::=a", "B::=b");
+            case DYCK:
+                // Paréntesis equilibrados no vacíos, con a y b como paréntesis.
+                return construir("SABC", "ab", "S::=SS|AB|AC", "C::=SB", "A::=a", "B::=b");
+            case PALINDROMOS:
+                // Palíndromos no vacíos sobre {a, b}.
+                return construir("SABXY", "ab", "S::=AA|BB|AX|BY|a|b", "X::=SA", "Y::=SB", "A::=a", "B::=b");
+            case AMBIGUA:
+                // a^n con un número de Catalan de árboles de derivación.
+                return construir("S", "a", "S::=SS|a");
+            default:
+                throw new CYKAlgorithmException();
+        }
+    }
+
+    private static CYKAlgorithm construir(String noTerminales, String terminales, String... reglas)
+            throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        for (char c : noTerminales.toCharArray()) {
+            cyk.addNonTerminal(c);
+        }
+        for (char c : terminales.toCharArray()) {
+            cyk.addTerminal(c);
+        }
+        cyk.setStartSymbol(noTerminales.charAt(0));
+        for (String regla : reglas) {
+            for (String produccion : regla.substring(4).split("\\|")) {
+                cyk.addProduction(regla.charAt(0), produccion);
+            }
+        }
+        return cyk;
+    }
+
+    /**
+     * Genera una gramática aleatoria en FNC. Cada regla A::=BC posible se
+     * incluye con la probabilidad indicada y cada no terminal deriva al menos
+     * un terminal, de modo que todos son productivos. El axioma es el primer
+     * no terminal.
+     *
+     * @param noTerminales Número de no terminales.
+     * @param terminales Número de terminales.
+     * @param densidad Probabilidad de cada regla binaria, entre 0 y 1.
+     * @param semilla Semilla del generador aleatorio.
+     * @return La gramática generada.
+     */
+    public static CYKAlgorithm aleatoria(int noTerminales, int terminales, double densidad, long semilla)
+            throws CYKAlgorithmException {
+        Random r = new Random(semilla);
+        char[] nt = simbolos(noTerminales, true);
+        char[] t = simbolos(terminales, false);
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        for (char c : nt) {
+            cyk.addNonTerminal(c);
+        }
+        for (char c : t) {
+            cyk.addTerminal(c);
+        }
+        cyk.setStartSymbol(nt[0]);
+        for (char a : nt) {
+            cyk.addProduction(a, String.valueOf(t[r.nextInt(t.length)]));
+            for (char b : nt) {
+                for (char c : nt) {
+                    if (r.nextDouble() < densidad)
+                        cyk.addProduction(a, new String(new char[]{b, c}));
+                }
+            }
+        }
+        return cyk;
+    }
+
+    /**
+     * @return Los primeros n caracteres en mayúsculas (no terminales) o en
+     * minúsculas (terminales), empezando por los de ASCII.
+     */
+    public static char[] simbolos(int n, boolean mayusculas) {
+        char[] resultado = new char[n];
+        int i = 0;
+        for (char c = 0; i < n && c < Character.MAX_VALUE; c++) {
+            if (mayusculas ? Character.isUpperCase(c) : Character.isLowerCase(c))
+                resultado[i++] = c;
+        }
+        return resultado;
+    }
+}
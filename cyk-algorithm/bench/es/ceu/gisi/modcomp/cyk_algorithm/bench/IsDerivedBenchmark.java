@@ -0,0 +1,63 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de {@link CYKAlgorithm#isDerived(String)} con la gramática ya
+ * compilada, para los lenguajes clásicos y para una gramática aleatoria.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsDerivedBenchmark {
+
+    /**
+     * Lenguaje de {@link GrammarGenerator#clasica(String)} o "aleatoria".
+     */
+    @Param({"anbn", "dyck", "palindromos", "ambigua", "aleatoria"})
+    public String lenguaje;
+
+    @Param({"10", "100", "1000"})
+    public int longitud;
+
+    private CYKAlgorithm cyk;
+    private String palabra;
+
+    @Setup(Level.Trial)
+    public void preparar() throws CYKAlgorithmException {
+        Random r = new Random(42);
+        if (lenguaje.equals("aleatoria")) {
+            cyk = GrammarGenerator.aleatoria(16, 4, 0.05, 42);
+            palabra = WordGenerator.aleatoria(GrammarGenerator.simbolos(4, false), longitud, r);
+        } else {
+            cyk = GrammarGenerator.clasica(lenguaje);
+            palabra = WordGenerator.palabra(lenguaje, longitud, r);
+        }
+        cyk.freeze();
+    }
+
+    @Benchmark
+    public boolean isDerived() throws CYKAlgorithmException {
+        return cyk.isDerived(palabra);
+    }
+}
@@ -0,0 +1,61 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Engines;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ParserEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Palabras largas del lenguaje de Dyck con cada motor, elegido por su nombre
+ * en {@link Engines}. El coste de los motores cúbicos crece con el cubo de la
+ * longitud, así que cada medida es una única ejecución; con 10000 símbolos
+ * tardan minutos, y puede limitarse la longitud con la opción
+ * -p longitud=1000 de JMH.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class LongWordBenchmark {
+
+    @Param({"cyk", "cyk-paralelo", "valiant", "cyk-disco", "cyk-vectores", "cyk-agenda", "earley", "auto"})
+    public String motor;
+
+    @Param({"1000", "10000"})
+    public int longitud;
+
+    private CYKAlgorithm cyk;
+    private ParserEngine engine;
+    private String palabra;
+
+    @Setup(Level.Trial)
+    public void preparar() throws CYKAlgorithmException {
+        cyk = GrammarGenerator.clasica(GrammarGenerator.DYCK);
+        cyk.freeze();
+        palabra = WordGenerator.palabra(GrammarGenerator.DYCK, longitud, new Random(42));
+        engine = Engines.porNombre(motor);
+    }
+
+    @Benchmark
+    public boolean isDerived() throws CYKAlgorithmException {
+        return cyk.isDerived(palabra, engine);
+    }
+}
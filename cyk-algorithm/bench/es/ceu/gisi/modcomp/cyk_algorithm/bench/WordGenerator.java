@@ -0,0 +1,85 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.bench;
+
+import java.util.Random;
+
+/**
+ * Palabras de longitud dada para los lenguajes de {@link GrammarGenerator}.
+ * Todas las palabras generadas para un lenguaje clásico pertenecen a él, de
+ * modo que el filtro previo no las descarta y se mide el relleno completo de
+ * la tabla.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class WordGenerator {
+
+    private WordGenerator() {
+    }
+
+    /**
+     * @param lenguaje Lenguaje de {@link GrammarGenerator#clasica(String)}.
+     * @param longitud Longitud de la palabra; para a^n b^n y Dyck se redondea
+     * al par siguiente.
+     * @param r Generador aleatorio.
+     * @return Una palabra del lenguaje.
+     */
+    public static String palabra(String lenguaje, int longitud, Random r) {
+        switch (lenguaje) {
+            case GrammarGenerator.ANBN:
+                return repetir('a', (longitud + 1) / 2) + repetir('b', (longitud + 1) / 2);
+            case GrammarGenerator.DYCK:
+                return dyck((longitud + 1) / 2, r);
+            case GrammarGenerator.PALINDROMOS:
+                return palindromo(longitud, r);
+            case GrammarGenerator.AMBIGUA:
+                return repetir('a', longitud);
+            default:
+                throw new IllegalArgumentException(lenguaje);
+        }
+    }
+
+    /**
+     * @return Una palabra aleatoria sobre los terminales indicados.
+     */
+    public static String aleatoria(char[] terminales, int longitud, Random r) {
+        char[] palabra = new char[longitud];
+        for (int i = 0; i < longitud; i++) {
+            palabra[i] = terminales[r.nextInt(terminales.length)];
+        }
+        return new String(palabra);
+    }
+
+    private static String repetir(char c, int n) {
+        char[] palabra = new char[n];
+        java.util.Arrays.fill(palabra, c);
+        return new String(palabra);
+    }
+
+    /**
+     * Paréntesis equilibrados con pares parejas: en cada paso se abre o se
+     * cierra al azar, cerrando siempre que ya no quepa abrir.
+     */
+    private static String dyck(int pares, Random r) {
+        StringBuilder sb = new StringBuilder(2 * pares);
+        int abiertos = 0;
+        int porAbrir = pares;
+        while (porAbrir > 0 || abiertos > 0) {
+            if (porAbrir > 0 && (abiertos == 0 || r.nextBoolean())) {
+                sb.append('a');
+                porAbrir--;
+                abiertos++;
+            } else {
+                sb.append('b');
+                abiertos--;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String palindromo(int longitud, Random r) {
+        char[] palabra = new char[longitud];
+        for (int i = 0; i < (longitud + 1) / 2; i++) {
+            palabra[i] = palabra[longitud - 1 - i] = r.nextBoolean() ? 'a' : 'b';
+        }
+        return new String(palabra);
+    }
+}
@@ -1,8 +1,24 @@
 package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
 import java.util.*;
 import java.lang.*;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartFormat;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.BatchRecognizer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.BatchResult;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Engines;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.IncrementalParser;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ParserEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ViterbiEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ViterbiParse;
 import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest.ParseForest;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.SymbolTable;
 import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.interfaces.CYKAlgorithmInterface;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseListener;
 
 /**
  * Esta clase contiene la implementación de la interfaz CYKAlgorithmInterface
@@ -19,6 +35,40 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
     public Character axioma = ' ';
     public HashSet<String> pr1 = new HashSet<>();
 
+    /**
+     * Probabilidades de las producciones añadidas con
+     * {@link #addProduction(char, String, double)}, por cabeza y parte
+     * derecha. Las producciones que no aparecen tienen probabilidad 1.
+     */
+    private final HashMap<Character, HashMap<String, Double>> probabilidades = new HashMap<>();
+
+    /**
+     * Última gramática compilada por {@link #freeze()}; se descarta cada vez
+     * que se modifica la gramática. Las colecciones públicas anteriores deben
+     * tratarse como de sólo lectura: los cambios que no pasan por los métodos
+     * de esta clase no invalidan la gramática compilada.
+     */
+    private volatile CompiledGrammar congelada;
+
+    /**
+     * Oyente que recibe las métricas de cada análisis de
+     * {@link #isDerived(String)}, o null para no medir nada.
+     */
+    private volatile ParseListener oyente;
+
+    /**
+     * Motor con el que se analizan las palabras en
+     * {@link #isDerived(String)}, o null para usar la tabla CYK.
+     */
+    private volatile ParserEngine motor;
+
+    /**
+     * Identificadores enteros de los terminales, para las palabras de tipo
+     * int[] o IntBuffer. Se sustituye por una tabla nueva en
+     * {@link #removeGrammar()}.
+     */
+    private volatile SymbolTable simbolos = new SymbolTable();
+
     @Override
     /**
      * Método que añade los elementos no terminales de la gramática.
@@ -26,7 +76,8 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @param nonterminal Por ejemplo, 'S'
      * @throws CYKAlgorithmException Si el elemento no es una letra mayúscula.
      */
-    public void addNonTerminal(char nonterminal) throws CYKAlgorithmException {
+    public synchronized void addNonTerminal(char nonterminal) throws CYKAlgorithmException {
+        congelada = null;
         if(!Character.isUpperCase(nonterminal))
             throw new CYKAlgorithmException();
         else{
@@ -44,20 +95,59 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * Método que añade los elementos terminales de la gramática.
      *
      * @param terminal Por ejemplo, 'a'
-     * @throws CYKAlgorithmException Si el elemento no es una letra minúscula.
+     * @throws CYKAlgorithmException Si el elemento no es una letra minúscula,
+     * si ya está añadido o si ya hay un terminal con nombre de esa letra.
      */
-    public void addTerminal(char terminal) throws CYKAlgorithmException {
+    public synchronized void addTerminal(char terminal) throws CYKAlgorithmException {
+        congelada = null;
         if(Character.isLowerCase(terminal)){
             if(terminales.contains(terminal)){
                 throw new CYKAlgorithmException();
             }
-            else
+            else{
+                if (simbolos.registrar(String.valueOf(terminal), terminal) < 0)
+                    throw new CYKAlgorithmException();
                 terminales.add(terminal);
+            }
         }
         else
             throw new CYKAlgorithmException();
     }
 
+    /**
+     * Añade un terminal con nombre, que puede ser cualquier cadena, para
+     * gramáticas con más terminales que letras minúsculas. Las palabras con
+     * estos terminales se analizan con {@link #isDerived(int[], int, int)} o
+     * {@link #isDerived(IntBuffer)}, y las producciones A::=t se añaden con
+     * {@link #addProduction(char, int)}; en el resto de producciones el
+     * terminal se escribe con su carácter, {@code getSymbolTable().caracter(id)}.
+     * Un nombre de una letra minúscula es el mismo terminal que
+     * {@link #addTerminal(char)} con esa letra.
+     *
+     * @param name Nombre del terminal, por ejemplo "IDENT".
+     * @return El identificador entero del terminal.
+     * @throws CYKAlgorithmException Si ya existe un terminal con ese nombre o
+     * ya hay {@link SymbolTable#MAXIMO_CON_NOMBRE} terminales con nombre que
+     * no son una letra minúscula.
+     */
+    public synchronized int addTerminal(String name) throws CYKAlgorithmException {
+        int id = simbolos.registrar(name);
+        if (id < 0)
+            throw new CYKAlgorithmException();
+        congelada = null;
+        terminales.add(simbolos.caracter(id));
+        return id;
+    }
+
+    /**
+     * @return La tabla de símbolos con los identificadores enteros de todos
+     * los terminales, tanto los de una letra como los de
+     * {@link #addTerminal(String)}.
+     */
+    public SymbolTable getSymbolTable() {
+        return simbolos;
+    }
+
     @Override
     /**
      * Método que indica, de los elementos no terminales, cuál es el axioma de
@@ -67,7 +157,8 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @throws CYKAlgorithmException Si el elemento insertado no forma parte del
      * conjunto de elementos no terminales.
      */
-    public void setStartSymbol(char nonterminal) throws CYKAlgorithmException {
+    public synchronized void setStartSymbol(char nonterminal) throws CYKAlgorithmException {
+        congelada = null;
         if(!noTerminales.contains(nonterminal))
             throw new CYKAlgorithmException();
         axioma = nonterminal;
@@ -87,7 +178,8 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * compuesta por elementos (terminales o no terminales) no definidos
      * previamente.
      */
-    public void addProduction(char nonterminal, String production) throws CYKAlgorithmException {
+    public synchronized void addProduction(char nonterminal, String production) throws CYKAlgorithmException {
+        congelada = null;
         HashSet<String> s = producciones.get(nonterminal);
         if(production.length()== 2){
             char noTer1 = production.charAt(0);
@@ -127,6 +219,83 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
             throw new CYKAlgorithmException();
     }
 
+    /**
+     * Añade la producción A::=t para un terminal dado por su identificador
+     * en la tabla de símbolos.
+     *
+     * @param nonterminal A
+     * @param terminalId Identificador del terminal t.
+     * @throws CYKAlgorithmException En los mismos casos que addProduction, o
+     * si el identificador no corresponde a ningún terminal.
+     */
+    public synchronized void addProduction(char nonterminal, int terminalId) throws CYKAlgorithmException {
+        char c = simbolos.caracter(terminalId);
+        if (c == 0)
+            throw new CYKAlgorithmException();
+        addProduction(nonterminal, String.valueOf(c));
+    }
+
+    /**
+     * Igual que {@link #addProduction(char, String)}, indicando además la
+     * probabilidad de la producción, que usa {@link #mostLikelyParse(String)}
+     * para elegir el análisis más probable.
+     *
+     * @param nonterminal A
+     * @param production "BC" o "a"
+     * @param probabilidad Probabilidad de la producción, en (0, 1].
+     * @throws CYKAlgorithmException En los mismos casos que addProduction, o si
+     * la probabilidad no está en (0, 1].
+     */
+    public synchronized void addProduction(char nonterminal, String production, double probabilidad)
+            throws CYKAlgorithmException {
+        if (!(probabilidad > 0 && probabilidad <= 1))
+            throw new CYKAlgorithmException();
+        addProduction(nonterminal, production);
+        probabilidades.computeIfAbsent(nonterminal, k -> new HashMap<>()).put(production, probabilidad);
+    }
+
+    /**
+     * Igual que {@link #addProduction(char, String)}, pero admite cualquier
+     * parte derecha formada por terminales y no terminales ya definidos:
+     * reglas de más de dos símbolos, reglas que mezclan terminales y no
+     * terminales, reglas unitarias A::=B y la regla vacía A::=ε, que se
+     * indica con la cadena "".
+     *
+     * Al compilar, la gramática se transforma a forma normal binaria con no
+     * terminales auxiliares, que no aparecen en
+     * {@link #algorithmStateToString(String)}. Con estas producciones no se
+     * pueden usar {@link #parse(String)} ni {@link #mostLikelyParse(String)}.
+     *
+     * @param nonterminal A
+     * @param production Por ejemplo "aSb", "B" o ""
+     * @throws CYKAlgorithmException Si la producción ya existe o contiene
+     * elementos (terminales o no terminales) no definidos previamente.
+     */
+    public synchronized void addGeneralProduction(char nonterminal, String production)
+            throws CYKAlgorithmException {
+        if (!noTerminales.contains(nonterminal))
+            throw new CYKAlgorithmException();
+        for (int i = 0; i < production.length(); i++) {
+            char c = production.charAt(i);
+            if (!noTerminales.contains(c) && !terminales.contains(c))
+                throw new CYKAlgorithmException();
+        }
+        if (!producciones.get(nonterminal).add(production))
+            throw new CYKAlgorithmException();
+        congelada = null;
+    }
+
+    /**
+     * Indica si la palabra vacía pertenece al lenguaje, lo que sólo es posible
+     * con producciones vacías de {@link #addGeneralProduction(char, String)}.
+     * {@link #isDerived(String)} no admite la palabra vacía.
+     *
+     * @return TRUE si el axioma deriva la palabra vacía.
+     */
+    public boolean derivesEmptyWord() {
+        return freeze().derivesEmptyWord();
+    }
+
     @Override
     /**
      * Método que indica si una palabra pertenece al lenguaje generado por la
@@ -141,56 +310,139 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * gramática es vacía o si el autómata carece de axioma.
      */
     public boolean isDerived(String word) throws CYKAlgorithmException {
-        if (word.length() == 0)
-            throw new CYKAlgorithmException();
-        if (axioma == ' ')
-            throw new CYKAlgorithmException();
-        for (int i = 0; i < word.length(); i++) {
-            if (!terminales.contains(word.charAt(i)))
-                throw new CYKAlgorithmException();
-        }
-        
-        int n = word.length();
-        String[][] matriz = new String[n][n];
-
-        for (int i = 0; i < n; i++) {
-            matriz[0][i] = "";
-            for (Map.Entry<Character, HashSet<String>> entry : producciones.entrySet()) {
-                if (entry.getValue().contains(String.valueOf(word.charAt(i)))) {
-                    matriz[0][i] += entry.getKey()+"";
-                }
-            }
-        }
+        ParserEngine elegido = motor;
+        return elegido == null ? freeze().isDerived(word, oyente) : freeze().isDerived(word, elegido);
+    }
 
+    /**
+     * Igual que {@link #isDerived(String)} para la palabra formada por los
+     * identificadores de terminales ids[offset, offset + length), que se
+     * analiza sin copiarla.
+     *
+     * @param ids Identificadores de la tabla de símbolos, por ejemplo un
+     * buffer de tokens del que se analiza un fragmento.
+     * @param offset Posición en la que empieza la palabra.
+     * @param length Longitud de la palabra.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException Si la palabra es vacía, si algún
+     * identificador no es un terminal de la gramática, si la gramática es
+     * vacía o si carece de axioma.
+     */
+    public boolean isDerived(int[] ids, int offset, int length) throws CYKAlgorithmException {
+        return freeze().isDerived(ids, offset, length, simbolos);
+    }
 
-        for (int i = 2;i<=n;i++) {
-            for (int j = 1; j <= n - i + 1; j++) {
-                matriz[i - 1][j - 1] = "";
-                for (int k = 1; k < i; k++) {
-                    String celda1 = matriz[k - 1][j - 1];
-                    String celda2 = matriz[i - k - 1][j + k - 1];
-                    if (celda1 != "" && celda2 != "") {
-                        for (int l = 0; l < celda1.length(); l++) {
-                            for (int m = 0; m < celda2.length(); m++) {
-                                String celda = String.valueOf(celda1.charAt(l)) + String.valueOf(celda2.charAt(m));
-                                for (Map.Entry<Character, HashSet<String>> entry : producciones.entrySet()) {
-                                    if (entry.getValue().contains(celda)) {
-                                        if (!matriz[i - 1][j - 1].contains(String.valueOf(entry.getKey()))) {
-                                            matriz[i - 1][j - 1] += entry.getKey()+"";
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
+    /**
+     * Igual que {@link #isDerived(int[], int, int)} con los identificadores
+     * entre la posición y el límite del buffer, que no se modifica.
+     */
+    public boolean isDerived(IntBuffer ids) throws CYKAlgorithmException {
+        return freeze().isDerived(ids, simbolos);
+    }
 
-        if (matriz[n - 1][0].contains(String.valueOf(axioma)))
-            return true;
-        else
-            return false;
+    /**
+     * Establece el oyente que recibe las métricas del relleno de la tabla en
+     * cada llamada a {@link #isDerived(String)}: celdas, combinaciones de
+     * celdas hijas, consultas al índice de reglas y tiempo por longitud de
+     * subcadena. Sin oyente, el análisis no mide nada.
+     *
+     * @param listener El oyente, o null para dejar de medir.
+     */
+    public void setParseListener(ParseListener listener) {
+        this.oyente = listener;
+    }
+
+    /**
+     * Establece el motor con el que {@link #isDerived(String)} analiza las
+     * palabras, por ejemplo uno obtenido con {@link Engines#porNombre} o el
+     * que elige según la gramática, {@link Engines#auto()}. Con un motor
+     * establecido, el oyente de {@link #setParseListener} no recibe métricas.
+     *
+     * @param engine El motor, o null para volver a la tabla CYK.
+     */
+    public void setParserEngine(ParserEngine engine) {
+        this.motor = engine;
+    }
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática, usando el motor de análisis indicado.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     * elementos terminales.
+     * @param engine El motor de análisis.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String),
+     * o si el motor no admite la gramática introducida.
+     */
+    public boolean isDerived(String word, ParserEngine engine) throws CYKAlgorithmException {
+        return freeze().isDerived(word, engine);
+    }
+
+    /**
+     * Igual que isDerived, pero rellena las filas de la tabla en paralelo con
+     * el pool común de ForkJoin. Pensado para palabras largas: por debajo de
+     * {@link BitsetChart#LONGITUD_MINIMA_PARALELA} símbolos se usa el cálculo
+     * secuencial.
+     *
+     * @param word La palabra a verificar.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public boolean isDerivedParallel(String word) throws CYKAlgorithmException {
+        return freeze().isDerivedParallel(word);
+    }
+
+    /**
+     * Método que indica, para cada palabra de la colección, si pertenece al
+     * lenguaje generado por la gramática. Las palabras repetidas se analizan
+     * una sola vez y el trabajo se reparte entre los hilos del pool común.
+     *
+     * @param words Las palabras a verificar.
+     * @return Las respuestas, en el orden de la colección, junto con un
+     * resumen del rendimiento del lote.
+     * @throws CYKAlgorithmException Si alguna de las palabras no puede
+     * verificarse por los mismos motivos que en isDerived.
+     */
+    public BatchResult isDerivedAll(Collection<String> words) throws CYKAlgorithmException {
+        return new BatchRecognizer(freeze()).isDerivedAll(words);
+    }
+
+    /**
+     * Analiza la palabra y devuelve su bosque de análisis, con el que se
+     * pueden contar y recorrer uno a uno sus árboles de derivación.
+     *
+     * @param word La palabra a analizar.
+     * @return El bosque de análisis, vacío si la palabra no pertenece al
+     * lenguaje.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public ParseForest parse(String word) throws CYKAlgorithmException {
+        return freeze().parse(word);
+    }
+
+    /**
+     * Calcula el árbol de derivación más probable de la palabra según las
+     * probabilidades de las producciones.
+     *
+     * @param word La palabra a analizar.
+     * @return El análisis más probable, con su probabilidad.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public ViterbiParse mostLikelyParse(String word) throws CYKAlgorithmException {
+        return new ViterbiEngine().analizar(freeze(), word);
+    }
+
+    /**
+     * Abre una sesión de análisis incremental sobre la gramática actual, en la
+     * que la palabra se va leyendo símbolo a símbolo. Los cambios posteriores
+     * en la gramática no afectan a la sesión.
+     *
+     * @return La sesión, sin ningún símbolo leído.
+     * @throws CYKAlgorithmException Si la gramática carece de axioma.
+     */
+    public IncrementalParser newSession() throws CYKAlgorithmException {
+        return new IncrementalParser(freeze());
     }
 
     @Override
@@ -210,61 +462,95 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * gramática es vacía o si el autómata carece de axioma.
      */
     public String algorithmStateToString(String word) throws CYKAlgorithmException {
-        StringBuilder sb = new StringBuilder();
-        if (word.length() == 0)
-            throw new CYKAlgorithmException();
-        if (axioma == ' ')
-            throw new CYKAlgorithmException();
-        for (int i = 0; i < word.length(); i++) {
-            if (!terminales.contains(word.charAt(i)))
-                throw new CYKAlgorithmException();
-        }
+        return freeze().algorithmStateToString(word);
+    }
 
-        int n = word.length();
-        String[][] matriz = new String[n][n];
+    /**
+     * Escribe la tabla calculada por el algoritmo para la palabra fila a fila
+     * en el destino, sin construir el String completo.
+     *
+     * @param word La palabra a verificar.
+     * @param destino Donde se escribe la tabla.
+     * @param formato {@link ChartFormat#DENSE} para el mismo formato que
+     * {@link #algorithmStateToString(String)} o {@link ChartFormat#SPARSE}
+     * para escribir sólo las celdas no vacías.
+     * @throws CYKAlgorithmException En los mismos casos que
+     * algorithmStateToString.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public void algorithmStateToString(String word, Appendable destino, ChartFormat formato)
+            throws CYKAlgorithmException, IOException {
+        freeze().algorithmStateToString(word, destino, formato);
+    }
 
-        for (int i = 0; i < n; i++) {
-            matriz[0][i] = "";
-            for (Map.Entry<Character, HashSet<String>> entry : producciones.entrySet()) {
-                if (entry.getValue().contains(String.valueOf(word.charAt(i)))) {
-                    matriz[0][i] += entry.getKey()+"";
-                }
-            }
-        }
+    /**
+     * Igual que {@link #algorithmStateToString(String, Appendable, ChartFormat)},
+     * escribiendo en UTF-8 en el canal, que no se cierra.
+     */
+    public void algorithmStateToString(String word, WritableByteChannel destino, ChartFormat formato)
+            throws CYKAlgorithmException, IOException {
+        freeze().algorithmStateToString(word, destino, formato);
+    }
 
+    /**
+     * Compila la gramática introducida hasta el momento a tablas indexadas por
+     * identificadores de símbolos, que es lo que usa el algoritmo CYK.
+     *
+     * @return La gramática compilada.
+     */
+    public synchronized CompiledGrammar compile() {
+        return CompiledGrammar.compile(terminales, noTerminales, producciones, axioma, probabilidades);
+    }
 
-        for (int i = 2;i<=n;i++) {
-            for (int j = 1; j <= n - i + 1; j++) {
-                matriz[i - 1][j - 1] = "";
-                for (int k = 1; k < i; k++) {
-                    String celda1 = matriz[k - 1][j - 1];
-                    String celda2 = matriz[i - k - 1][j + k - 1];
-                    if (celda1 != "" && celda2 != "") {
-                        for (int l = 0; l < celda1.length(); l++) {
-                            for (int m = 0; m < celda2.length(); m++) {
-                                String celda = String.valueOf(celda1.charAt(l)) + String.valueOf(celda2.charAt(m));
-                                for (Map.Entry<Character, HashSet<String>> entry : producciones.entrySet()) {
-                                    if (entry.getValue().contains(celda)) {
-                                        if(!matriz[i - 1][j - 1].contains(String.valueOf(entry.getKey())))
-                                            matriz[i - 1][j - 1] += entry.getKey();
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Devuelve una instantánea inmutable de la gramática actual. La instantánea
+     * puede usarse desde cualquier número de hilos sin sincronización, y no se
+     * ve afectada por los cambios que se hagan después en este objeto: éste
+     * sigue aceptando producciones para la siguiente versión de la gramática.
+     *
+     * Mientras la gramática no cambie se devuelve siempre la misma instancia.
+     *
+     * @return La gramática compilada e inmutable.
+     */
+    public CompiledGrammar freeze() {
+        CompiledGrammar gramatica = congelada;
+        if (gramatica == null) {
+            synchronized (this) {
+                gramatica = congelada;
+                if (gramatica == null) {
+                    gramatica = compile();
+                    congelada = gramatica;
                 }
             }
         }
-        for(int i=0;i<n;i++){
-            for(int j=0;j<n;j++){
-                if(matriz[i][j]==""||matriz[i][j]==null||matriz[i][j].length()==0)
-                    sb.append("[-]");
-                else
-                    sb.append("["+matriz[i][j]+"]");
-            }
-            sb.append("\n");
+        return gramatica;
+    }
+
+    /**
+     * Devuelve una copia independiente de la gramática, con su propia tabla de
+     * símbolos, el mismo oyente y el mismo motor. Los cambios en la copia no
+     * afectan a este objeto ni al revés; mientras la copia no cambie comparte
+     * la gramática compilada de {@link #freeze()}.
+     *
+     * @return La copia.
+     */
+    public synchronized CYKAlgorithm copy() {
+        CYKAlgorithm copia = new CYKAlgorithm();
+        copia.terminales.addAll(terminales);
+        copia.noTerminales.addAll(noTerminales);
+        for (Map.Entry<Character, HashSet<String>> e : producciones.entrySet()) {
+            copia.producciones.put(e.getKey(), new HashSet<>(e.getValue()));
         }
-        return sb.toString();
+        for (Map.Entry<Character, HashMap<String, Double>> e : probabilidades.entrySet()) {
+            copia.probabilidades.put(e.getKey(), new HashMap<>(e.getValue()));
+        }
+        copia.axioma = axioma;
+        copia.pr1.addAll(pr1);
+        copia.simbolos = simbolos.copia();
+        copia.oyente = oyente;
+        copia.motor = motor;
+        copia.congelada = congelada;
+        return copia;
     }
 
 
@@ -274,10 +560,13 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * gramática (elementos terminales, no terminales, axioma y producciones),
      * dejando el algoritmo listo para volver a insertar una gramática nueva.
      */
-    public void removeGrammar() {
+    public synchronized void removeGrammar() {
+        congelada = null;
         producciones.clear();
+        probabilidades.clear();
         noTerminales.clear();
         terminales.clear();
+        simbolos = new SymbolTable();
         axioma = ' ';
     }
 
@@ -293,7 +582,7 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * ejemplo, si se piden las producciones del elemento 'S', el String de
      * salida podría ser: "S::=AB|BC".
      */
-    public String getProductions(char nonterminal) {
+    public synchronized String getProductions(char nonterminal) {
         
         StringBuilder sb = new StringBuilder();
         
@@ -320,7 +609,7 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @return Devuelve el agregado de hacer getProductions sobre todos los
      * elementos no terminales.
      */
-    public String getGrammar() {
+    public synchronized String getGrammar() {
         StringBuilder sb = new StringBuilder();
         for (Character c: producciones.keySet()){
             sb.append(c.toString()).append("::=");
@@ -0,0 +1,166 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.SymbolTable;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseListener;
+
+/**
+ * Gramática que se modifica por versiones, para servidores en los que la
+ * gramática cambia mientras se siguen analizando palabras.
+ *
+ * Cada versión es inmutable. Para modificar la gramática se copia la última
+ * versión, se aplican los cambios a la copia y se compila, todo fuera de la
+ * vista de los análisis; después la versión nueva se publica con una sola
+ * escritura. Los análisis leen la versión actual sin ningún cerrojo y siguen
+ * con ella hasta el final, aunque entretanto se publiquen otras, así que nunca
+ * esperan a una modificación ni ven una gramática a medio modificar. Las
+ * modificaciones sí se aplican de una en una.
+ *
+ * Cada versión tiene un número, que empieza en 1 y aumenta en uno con cada
+ * modificación, con el que se pueden etiquetar los resultados.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class VersionedGrammar {
+
+    /**
+     * Modificación de la gramática, que se aplica sobre una copia de la
+     * última versión.
+     */
+    @FunctionalInterface
+    public interface Edicion {
+
+        /**
+         * @param borrador La copia de la última versión, que puede modificarse
+         * con los métodos de {@link CYKAlgorithm}. No debe usarse después de
+         * la llamada.
+         * @throws CYKAlgorithmException Si algún cambio no es válido; en ese
+         * caso no se publica ninguna versión.
+         */
+        void aplicar(CYKAlgorithm borrador) throws CYKAlgorithmException;
+    }
+
+    /**
+     * Una versión de la gramática.
+     */
+    public static final class Version {
+
+        private final long numero;
+        /**
+         * Gramática de la que se copia la siguiente versión. No se modifica
+         * después de publicarse.
+         */
+        private final CYKAlgorithm fuente;
+        private final CompiledGrammar gramatica;
+        private final SymbolTable simbolos;
+
+        private Version(long numero, CYKAlgorithm fuente) {
+            this.numero = numero;
+            this.fuente = fuente;
+            this.gramatica = fuente.freeze();
+            this.simbolos = fuente.getSymbolTable();
+        }
+
+        /**
+         * @return El número de la versión.
+         */
+        public long numero() {
+            return numero;
+        }
+
+        /**
+         * @return La gramática compilada de la versión, para analizar con
+         * cualquiera de sus métodos.
+         */
+        public CompiledGrammar gramatica() {
+            return gramatica;
+        }
+
+        /**
+         * @return Los identificadores de los terminales de la versión.
+         */
+        public SymbolTable simbolos() {
+            return simbolos;
+        }
+
+        /**
+         * Igual que {@link CYKAlgorithm#isDerived(String)} con la gramática de
+         * esta versión.
+         */
+        public boolean isDerived(String word) throws CYKAlgorithmException {
+            return gramatica.isDerived(word, (ParseListener) null);
+        }
+
+        /**
+         * Igual que {@link CYKAlgorithm#isDerived(int[], int, int)} con la
+         * gramática y los identificadores de esta versión.
+         */
+        public boolean isDerived(int[] ids, int offset, int length) throws CYKAlgorithmException {
+            return gramatica.isDerived(ids, offset, length, simbolos);
+        }
+    }
+
+    private volatile Version actual;
+
+    /**
+     * Crea la versión 1 a partir de una copia de la gramática, de modo que los
+     * cambios posteriores en ésta no le afectan.
+     *
+     * @param inicial La gramática inicial.
+     */
+    public VersionedGrammar(CYKAlgorithm inicial) {
+        this.actual = new Version(1, inicial.copy());
+    }
+
+    /**
+     * Devuelve la versión actual sin esperar a las modificaciones en curso. Un
+     * análisis que se haga con la versión devuelta no cambia aunque después se
+     * publiquen otras.
+     *
+     * @return La última versión publicada.
+     */
+    public Version actual() {
+        return actual;
+    }
+
+    /**
+     * @return El número de la última versión publicada.
+     */
+    public long version() {
+        return actual.numero;
+    }
+
+    /**
+     * Aplica la modificación sobre una copia de la última versión, la compila
+     * y la publica como versión siguiente. Si la modificación lanza una
+     * excepción no se publica nada.
+     *
+     * @param edicion La modificación.
+     * @return La versión publicada.
+     * @throws CYKAlgorithmException Si la modificación no es válida.
+     */
+    public synchronized Version editar(Edicion edicion) throws CYKAlgorithmException {
+        Version ultima = actual;
+        CYKAlgorithm borrador = ultima.fuente.copy();
+        edicion.aplicar(borrador);
+        return publicar(ultima, borrador);
+    }
+
+    /**
+     * Sustituye la gramática por una copia de la indicada, que se publica como
+     * versión siguiente.
+     *
+     * @param gramatica La gramática nueva.
+     * @return La versión publicada.
+     */
+    public synchronized Version reemplazar(CYKAlgorithm gramatica) {
+        return publicar(actual, gramatica.copy());
+    }
+
+    private Version publicar(Version ultima, CYKAlgorithm borrador) {
+        Version nueva = new Version(ultima.numero + 1, borrador);
+        actual = nueva;
+        return nueva;
+    }
+}
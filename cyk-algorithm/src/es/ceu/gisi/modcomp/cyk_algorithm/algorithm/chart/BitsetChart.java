@@ -0,0 +1,321 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseListener;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tabla del algoritmo CYK en la que cada celda es un conjunto de elementos no
+ * terminales codificado como máscara de bits: el bit i de la celda indica que
+ * el no terminal con identificador i deriva la subcadena correspondiente.
+ *
+ * Cada celda ocupa un número fijo de palabras de 64 bits. Con los 26 no
+ * terminales posibles (letras mayúsculas) basta con una palabra por celda; las
+ * gramáticas con más no terminales usan varias palabras consecutivas. La unión
+ * de dos conjuntos se reduce a un OR bit a bit.
+ *
+ * La fila i de la tabla contiene las subcadenas de longitud i + 1 y la columna
+ * j la posición en la que comienzan, igual que la matriz del algoritmo. Como
+ * la fila i sólo tiene n - i celdas, las filas se guardan una detrás de otra
+ * en un array de n(n+1)/2 celdas, sin reservar la mitad que nunca se usa.
+ *
+ * Una tabla puede reutilizarse para otras palabras con
+ * {@link #preparar(int, int)}, que sólo reserva memoria cuando la nueva palabra
+ * no cabe en el array actual.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class BitsetChart {
+
+    /**
+     * Longitud de palabra a partir de la cual merece la pena rellenar la tabla
+     * en paralelo; por debajo se usa siempre el recorrido secuencial.
+     */
+    public static final int LONGITUD_MINIMA_PARALELA = 256;
+
+    /**
+     * Número aproximado de combinaciones de celdas (celdas por puntos de
+     * corte) que resuelve cada tarea paralela.
+     */
+    private static final int TRABAJO_MINIMO = 1 << 14;
+
+    private int longitud;
+    private int palabras;
+    private long[] celdas;
+
+    /**
+     * Crea una tabla vacía para una palabra de la longitud indicada.
+     *
+     * @param longitud Longitud de la palabra a analizar.
+     * @param palabras Número de palabras de 64 bits que ocupa cada celda.
+     */
+    public BitsetChart(int longitud, int palabras) {
+        this.longitud = longitud;
+        this.palabras = palabras;
+        this.celdas = new long[tamanio(longitud, palabras)];
+    }
+
+    /**
+     * @return El número de posiciones del array que ocupa una tabla
+     * triangular para una palabra de la longitud indicada.
+     */
+    static int tamanio(int longitud, int palabras) {
+        long celdas = (long) longitud * (longitud + 1) / 2 * palabras;
+        if (celdas > Integer.MAX_VALUE - 8)
+            throw new OutOfMemoryError("Tabla CYK demasiado grande: " + celdas + " palabras");
+        return (int) celdas;
+    }
+
+    /**
+     * Prepara la tabla, vacía, para una palabra de otra longitud o una
+     * gramática con otro tamaño de celda. El array sólo se sustituye si el
+     * actual es demasiado pequeño.
+     *
+     * @param longitud Longitud de la palabra a analizar.
+     * @param palabras Número de palabras de 64 bits que ocupa cada celda.
+     */
+    public void preparar(int longitud, int palabras) {
+        preparar(longitud, palabras, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Igual que {@link #preparar(int, int)}, pero al sustituir el array no lo
+     * agranda más allá del máximo indicado salvo que la palabra lo necesite.
+     *
+     * @param maximo Número máximo de posiciones al duplicar el array.
+     */
+    public void preparar(int longitud, int palabras, int maximo) {
+        int necesario = tamanio(longitud, palabras);
+        if (necesario > celdas.length)
+            celdas = new long[Math.max(necesario, (int) Math.min(maximo, celdas.length * 2L))];
+        else
+            Arrays.fill(celdas, 0, necesario, 0L);
+        this.longitud = longitud;
+        this.palabras = palabras;
+    }
+
+    /**
+     * @return La longitud de la palabra para la que se construyó la tabla.
+     */
+    public int longitud() {
+        return longitud;
+    }
+
+    /**
+     * @return El número de palabras de 64 bits que ocupa cada celda.
+     */
+    public int palabras() {
+        return palabras;
+    }
+
+    /**
+     * Devuelve el array que respalda la tabla. Las celdas se direccionan con
+     * {@link #indice(int, int)} y ocupan {@link #palabras()} posiciones
+     * consecutivas. El array puede ser más largo de lo necesario.
+     *
+     * @return El array de celdas.
+     */
+    public long[] celdas() {
+        return celdas;
+    }
+
+    /**
+     * @param fila Longitud de la subcadena menos uno.
+     * @param columna Posición en la que comienza la subcadena.
+     * @return La posición de la primera palabra de la celda en el array.
+     */
+    public int indice(int fila, int columna) {
+        return (fila * longitud - (fila * (fila - 1) >>> 1) + columna) * palabras;
+    }
+
+    /**
+     * Indica si el no terminal con identificador id pertenece a la celda.
+     */
+    public boolean contiene(int fila, int columna, int id) {
+        return (celdas[indice(fila, columna) + (id >>> 6)] & (1L << id)) != 0;
+    }
+
+    /**
+     * Añade el no terminal con identificador id a la celda.
+     */
+    public void marcar(int fila, int columna, int id) {
+        celdas[indice(fila, columna) + (id >>> 6)] |= 1L << id;
+    }
+
+    /**
+     * Indica si la celda no contiene ningún no terminal.
+     */
+    public boolean estaVacia(int fila, int columna) {
+        int base = indice(fila, columna);
+        for (int w = 0; w < palabras; w++) {
+            if (celdas[base + w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vacía todas las celdas para poder reutilizar la tabla con otra palabra
+     * de la misma longitud.
+     */
+    public void limpiar() {
+        Arrays.fill(celdas, 0, tamanio(longitud, palabras), 0L);
+    }
+
+    /**
+     * Rellena la tabla con el algoritmo CYK para la palabra indicada. La
+     * primera fila sale de la tabla de terminales de la gramática y el resto
+     * de combinar, para cada punto de corte, las dos celdas que lo forman.
+     *
+     * @param gramatica Gramática compilada; sus conjuntos deben ocupar
+     * {@link #palabras()} palabras.
+     * @param simbolos Identificadores de los terminales de la palabra.
+     * @param desde Posición de simbolos en la que empieza la palabra, que
+     * ocupa {@link #longitud()} posiciones.
+     */
+    public void rellenar(CompiledGrammar gramatica, int[] simbolos, int desde) {
+        int n = longitud;
+        for (int j = 0; j < n; j++) {
+            gramatica.celdaTerminal(simbolos[desde + j], celdas, indice(0, j));
+        }
+        for (int i = 2; i <= n; i++) {
+            for (int j = 0; j <= n - i; j++) {
+                int celda = indice(i - 1, j);
+                for (int k = 1; k < i; k++) {
+                    gramatica.combinar(celdas, indice(k - 1, j), celdas, indice(i - k - 1, j + k), celdas, celda);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rellena la tabla igual que {@link #rellenar(CompiledGrammar, int[], int)},
+     * informando al oyente de las métricas de cada fila. Es un recorrido aparte
+     * para que el relleno sin oyente no pague la medición.
+     *
+     * @param gramatica Gramática compilada.
+     * @param simbolos Identificadores de los terminales de la palabra.
+     * @param desde Posición de simbolos en la que empieza la palabra.
+     * @param oyente Oyente que recibe las métricas.
+     */
+    public void rellenar(CompiledGrammar gramatica, int[] simbolos, int desde, ParseListener oyente) {
+        int n = longitud;
+        long inicio = System.nanoTime();
+        for (int j = 0; j < n; j++) {
+            gramatica.celdaTerminal(simbolos[desde + j], celdas, indice(0, j));
+        }
+        long fin = System.nanoTime();
+        oyente.alRellenarFila(1, n, celdasNoVacias(0), 0, n, fin - inicio);
+        for (int i = 2; i <= n; i++) {
+            inicio = fin;
+            long consultas = 0;
+            for (int j = 0; j <= n - i; j++) {
+                int celda = indice(i - 1, j);
+                for (int k = 1; k < i; k++) {
+                    consultas += gramatica.combinar(celdas, indice(k - 1, j), celdas, indice(i - k - 1, j + k), celdas, celda);
+                }
+            }
+            fin = System.nanoTime();
+            oyente.alRellenarFila(i, n - i + 1, celdasNoVacias(i - 1), (long) (n - i + 1) * (i - 1),
+                    consultas, fin - inicio);
+        }
+    }
+
+    /**
+     * @return El número de celdas de la fila que contienen algún no terminal.
+     */
+    public int celdasNoVacias(int fila) {
+        int resultado = 0;
+        for (int j = 0; j < longitud - fila; j++) {
+            if (!estaVacia(fila, j))
+                resultado++;
+        }
+        return resultado;
+    }
+
+    /**
+     * @return La fracción de celdas de la tabla que contienen algún no
+     * terminal, entre 0 y 1.
+     */
+    public double densidad() {
+        long noVacias = 0;
+        for (int fila = 0; fila < longitud; fila++) {
+            noVacias += celdasNoVacias(fila);
+        }
+        return longitud == 0 ? 0 : noVacias / ((double) longitud * (longitud + 1) / 2);
+    }
+
+    /**
+     * Rellena la tabla igual que {@link #rellenar(CompiledGrammar, int[], int)},
+     * pero repartiendo cada fila entre los hilos del pool. Las celdas de una
+     * misma fila sólo dependen de filas anteriores, así que pueden calcularse
+     * a la vez; cada fila se trocea en bloques de tamaño proporcional al
+     * número de puntos de corte de sus celdas. Las palabras cortas se rellenan
+     * de forma secuencial.
+     *
+     * @param gramatica Gramática compilada.
+     * @param simbolos Identificadores de los terminales de la palabra.
+     * @param desde Posición de simbolos en la que empieza la palabra.
+     * @param pool Pool de hilos con el que se reparte el trabajo.
+     */
+    public void rellenarParalelo(CompiledGrammar gramatica, int[] simbolos, int desde, ForkJoinPool pool) {
+        int n = longitud;
+        if (n < LONGITUD_MINIMA_PARALELA || pool.getParallelism() < 2) {
+            rellenar(gramatica, simbolos, desde);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            gramatica.celdaTerminal(simbolos[desde + j], celdas, indice(0, j));
+        }
+        for (int i = 2; i <= n; i++) {
+            FilaParalela fila = new FilaParalela(this, gramatica, i, 0, n - i + 1);
+            if ((long) (n - i + 1) * (i - 1) < TRABAJO_MINIMO)
+                fila.compute();
+            else
+                pool.invoke(fila);
+        }
+    }
+
+    /**
+     * Calcula las celdas [desde, hasta) de la fila de subcadenas de longitud
+     * i, dividiéndose en dos mientras el bloque tenga trabajo de sobra.
+     */
+    private static final class FilaParalela extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BitsetChart tabla;
+        private final CompiledGrammar gramatica;
+        private final int i;
+        private final int desde;
+        private final int hasta;
+
+        FilaParalela(BitsetChart tabla, CompiledGrammar gramatica, int i, int desde, int hasta) {
+            this.tabla = tabla;
+            this.gramatica = gramatica;
+            this.i = i;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (hasta - desde) * (i - 1) > TRABAJO_MINIMO && hasta - desde > 1) {
+                int mitad = (desde + hasta) >>> 1;
+                invokeAll(new FilaParalela(tabla, gramatica, i, desde, mitad),
+                        new FilaParalela(tabla, gramatica, i, mitad, hasta));
+                return;
+            }
+            long[] celdas = tabla.celdas;
+            for (int j = desde; j < hasta; j++) {
+                int celda = tabla.indice(i - 1, j);
+                for (int k = 1; k < i; k++) {
+                    gramatica.combinar(celdas, tabla.indice(k - 1, j), celdas, tabla.indice(i - k - 1, j + k), celdas, celda);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+/**
+ * Formatos en los que {@link ChartRenderer} escribe una tabla CYK.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public enum ChartFormat {
+
+    /**
+     * La tabla completa de n x n celdas, una fila por línea, con el mismo
+     * formato que {@code algorithmStateToString}: "[-]" para las celdas
+     * vacías o fuera de la tabla y "[AB]" para las que contienen no
+     * terminales.
+     */
+    DENSE,
+    /**
+     * Sólo las celdas no vacías, una por línea: la fila, la columna y los no
+     * terminales de la celda separados por tabuladores. La primera línea
+     * indica la longitud de la palabra.
+     */
+    SPARSE
+}
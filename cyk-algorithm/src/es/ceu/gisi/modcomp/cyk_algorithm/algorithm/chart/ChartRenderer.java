@@ -0,0 +1,102 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.io.IOException;
+
+/**
+ * Escribe una tabla CYK en un Appendable fila a fila, sin construir antes el
+ * texto completo: en memoria sólo se guarda la fila que se está escribiendo.
+ * Para volcar tablas grandes a fichero conviene que el destino tenga su propio
+ * búfer, por ejemplo un BufferedWriter.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ChartRenderer {
+
+    private ChartRenderer() {
+    }
+
+    /**
+     * Escribe la tabla en el formato indicado.
+     *
+     * @param gramatica Gramática con la que se ha rellenado la tabla.
+     * @param tabla La tabla rellena.
+     * @param destino Donde se escribe el texto.
+     * @param formato Formato de salida.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public static void render(CompiledGrammar gramatica, BitsetChart tabla, Appendable destino,
+            ChartFormat formato) throws IOException {
+        if (formato == ChartFormat.SPARSE)
+            renderDispersa(gramatica, tabla, destino);
+        else
+            renderDensa(gramatica, tabla, destino);
+    }
+
+    private static void renderDensa(CompiledGrammar gramatica, BitsetChart tabla, Appendable destino)
+            throws IOException {
+        int n = tabla.longitud();
+        StringBuilder fila = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            fila.setLength(0);
+            for (int j = 0; j < n; j++) {
+                if (j > n - i - 1 || !tieneVisibles(gramatica, tabla, i, j)) {
+                    fila.append("[-]");
+                } else {
+                    fila.append('[');
+                    simbolos(gramatica, tabla, i, j, fila);
+                    fila.append(']');
+                }
+            }
+            fila.append('\n');
+            destino.append(fila);
+        }
+    }
+
+    private static void renderDispersa(CompiledGrammar gramatica, BitsetChart tabla, Appendable destino)
+            throws IOException {
+        int n = tabla.longitud();
+        StringBuilder linea = new StringBuilder();
+        destino.append("longitud\t").append(Integer.toString(n)).append('\n');
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n - i; j++) {
+                if (!tieneVisibles(gramatica, tabla, i, j))
+                    continue;
+                linea.setLength(0);
+                linea.append(i).append('\t').append(j).append('\t');
+                simbolos(gramatica, tabla, i, j, linea);
+                linea.append('\n');
+                destino.append(linea);
+            }
+        }
+    }
+
+    /**
+     * Indica si la celda contiene algún no terminal que no sea auxiliar.
+     */
+    private static boolean tieneVisibles(CompiledGrammar gramatica, BitsetChart tabla, int i, int j) {
+        long[] celdas = tabla.celdas();
+        int base = tabla.indice(i, j);
+        for (int w = 0; w < tabla.palabras(); w++) {
+            if ((celdas[base + w] & gramatica.visibles(w)) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Añade los no terminales de la celda en orden de identificador, sin los
+     * auxiliares de las gramáticas transformadas a forma normal binaria.
+     */
+    private static void simbolos(CompiledGrammar gramatica, BitsetChart tabla, int i, int j, StringBuilder sb) {
+        long[] celdas = tabla.celdas();
+        int base = tabla.indice(i, j);
+        for (int w = 0; w < tabla.palabras(); w++) {
+            long bits = celdas[base + w] & gramatica.visibles(w);
+            while (bits != 0) {
+                sb.append(gramatica.noTerminal((w << 6) + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+/**
+ * Memoria de trabajo de un hilo para analizar palabras: una tabla CYK y un
+ * array para la palabra traducida a identificadores de terminales.
+ *
+ * Cada hilo tiene su propio espacio de trabajo, que crece cuando llega una
+ * palabra más larga que todas las anteriores y se reutiliza en el resto de
+ * llamadas. Así, una vez el hilo ha visto palabras de la longitud habitual,
+ * analizar otra no reserva memoria. Las palabras cuya tabla no cabe en
+ * {@link #CELDAS_MAXIMAS} posiciones reciben una tabla propia, que se libera
+ * al terminar, para que una palabra excepcionalmente larga no deje cientos de
+ * megabytes retenidos en cada hilo que la haya analizado.
+ *
+ * El espacio de trabajo sólo puede usarse mientras el análisis no ceda el
+ * hilo a otras tareas: un hilo de un ForkJoinPool que espera a sus subtareas
+ * puede ejecutar otra tarea que también use su espacio de trabajo.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ChartWorkspace {
+
+    /**
+     * Número máximo de posiciones de 64 bits de la tabla que se conserva en
+     * cada hilo, 8 MiB: la de una palabra de unos 1400 símbolos con celdas de
+     * una palabra.
+     */
+    public static final int CELDAS_MAXIMAS = 1 << 20;
+
+    /**
+     * Longitud máxima del array de símbolos que se conserva en cada hilo.
+     */
+    private static final int SIMBOLOS_MAXIMOS = 1 << 16;
+
+    private static final ThreadLocal<ChartWorkspace> ACTUAL = ThreadLocal.withInitial(ChartWorkspace::new);
+
+    private final BitsetChart tabla = new BitsetChart(0, 1);
+    private int[] simbolos = new int[16];
+
+    private ChartWorkspace() {
+    }
+
+    /**
+     * @return El espacio de trabajo del hilo que hace la llamada.
+     */
+    public static ChartWorkspace actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Devuelve la tabla del hilo, vacía y preparada para una palabra de la
+     * longitud indicada.
+     *
+     * @param longitud Longitud de la palabra a analizar.
+     * @param palabras Número de palabras de 64 bits que ocupa cada celda.
+     * @return La tabla, que seguirá perteneciendo al espacio de trabajo, o una
+     * tabla nueva si la palabra necesita más de {@link #CELDAS_MAXIMAS}
+     * posiciones.
+     */
+    public BitsetChart tabla(int longitud, int palabras) {
+        if (BitsetChart.tamanio(longitud, palabras) > CELDAS_MAXIMAS)
+            return new BitsetChart(longitud, palabras);
+        tabla.preparar(longitud, palabras, CELDAS_MAXIMAS);
+        return tabla;
+    }
+
+    /**
+     * Devuelve un array de al menos la longitud indicada para traducir la
+     * palabra. Su contenido es el de la llamada anterior.
+     *
+     * @param longitud Número de símbolos que se van a guardar.
+     * @return El array del espacio de trabajo, o uno nuevo si la palabra es
+     * más larga que el máximo que se conserva.
+     */
+    public int[] simbolos(int longitud) {
+        if (longitud > SIMBOLOS_MAXIMOS)
+            return new int[longitud];
+        if (simbolos.length < longitud)
+            simbolos = new int[Math.min(SIMBOLOS_MAXIMOS, Math.max(longitud, simbolos.length * 2))];
+        return simbolos;
+    }
+}
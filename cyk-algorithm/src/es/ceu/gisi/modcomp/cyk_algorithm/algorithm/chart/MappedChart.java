@@ -0,0 +1,178 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Tabla CYK guardada en un fichero temporal proyectado en memoria, para
+ * palabras cuya tabla no cabe en el heap.
+ *
+ * Las celdas se colocan igual que en {@link BitsetChart}: las filas, de la de
+ * subcadenas de longitud 1 a la de la palabra completa, una detrás de otra.
+ * El fichero se proyecta por segmentos de hasta 1 GiB con
+ * {@link FileChannel#map} a medida que se usan. Las proyecciones sólo ocupan
+ * espacio de direcciones, no heap: el sistema operativo mantiene en memoria
+ * las páginas de las filas con las que se está trabajando y devuelve al
+ * fichero las que llevan tiempo sin usarse. Las proyecciones no se sueltan
+ * hasta cerrar la tabla, porque Java sólo las libera cuando el recolector
+ * reclama el buffer y volver a proyectar segmentos agotaría el límite de
+ * proyecciones del proceso.
+ *
+ * Como simplificación, el fichero ocupa la tabla entera, n(n+1)/2 celdas,
+ * hasta cerrarla, y entonces se borra. Al rellenar por filas, la celda de la
+ * fila r y la columna j no se vuelve a leer una vez calculada la fila
+ * max(n - 1 - j, r + j), así que las celdas centrales de cada fila quedan
+ * muertas mucho antes del final. Pero ninguna fila entera lo está hasta la
+ * última, porque la celda de la palabra completa combina la primera celda de
+ * cada fila con la última de la fila complementaria, y Java no permite
+ * devolver al sistema tramos sueltos de un fichero ni deshacer una
+ * proyección; recuperar ese espacio exigiría otra disposición de las celdas.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class MappedChart implements AutoCloseable {
+
+    /**
+     * Número máximo de longs de un segmento proyectado (1 GiB).
+     */
+    private static final long LONGS_POR_SEGMENTO = 1L << 27;
+
+    private final int longitud;
+    private final int palabras;
+    private final FileChannel canal;
+    private final long tamanioBytes;
+    private final long longsPorSegmento;
+    private final LongBuffer[] segmentos;
+
+    /**
+     * Crea una tabla vacía respaldada por un fichero temporal.
+     *
+     * @param longitud Longitud de la palabra a analizar.
+     * @param palabras Número de palabras de 64 bits que ocupa cada celda.
+     * @param directorio Directorio en el que se crea el fichero temporal.
+     * @throws IOException Si no se puede crear el fichero.
+     */
+    public MappedChart(int longitud, int palabras, Path directorio) throws IOException {
+        this.longitud = longitud;
+        this.palabras = palabras;
+        // Cada segmento contiene un número entero de celdas.
+        this.longsPorSegmento = LONGS_POR_SEGMENTO / palabras * palabras;
+        long total = (long) longitud * (longitud + 1) / 2 * palabras;
+        int numSegmentos = (int) ((total + longsPorSegmento - 1) / longsPorSegmento);
+        this.segmentos = new LongBuffer[numSegmentos];
+        Path fichero = Files.createTempFile(directorio, "cyk", ".tabla");
+        this.canal = FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.tamanioBytes = total * Long.BYTES;
+    }
+
+    /**
+     * @return La longitud de la palabra para la que se creó la tabla.
+     */
+    public int longitud() {
+        return longitud;
+    }
+
+    /**
+     * @return Número de palabras de 64 bits que ocupa cada celda.
+     */
+    public int palabras() {
+        return palabras;
+    }
+
+    /**
+     * @return La posición en el fichero, en longs, de la primera palabra de la
+     * celda.
+     */
+    private long indice(int fila, int columna) {
+        return ((long) fila * longitud - ((long) fila * (fila - 1) >>> 1) + columna) * palabras;
+    }
+
+    /**
+     * Devuelve el segmento s, proyectándolo la primera vez que se usa.
+     */
+    private LongBuffer segmento(int s) throws IOException {
+        LongBuffer buffer = segmentos[s];
+        if (buffer == null) {
+            long inicio = s * longsPorSegmento * Long.BYTES;
+            long bytes = Math.min(longsPorSegmento * Long.BYTES, tamanioBytes - inicio);
+            buffer = canal.map(FileChannel.MapMode.READ_WRITE, inicio, bytes)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            segmentos[s] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Copia la celda en destino[off, off + palabras()).
+     */
+    public void leer(int fila, int columna, long[] destino, int off) throws IOException {
+        long i = indice(fila, columna);
+        segmento((int) (i / longsPorSegmento)).get((int) (i % longsPorSegmento), destino, off, palabras);
+    }
+
+    /**
+     * Sustituye la celda por origen[off, off + palabras()).
+     */
+    public void escribir(int fila, int columna, long[] origen, int off) throws IOException {
+        long i = indice(fila, columna);
+        segmento((int) (i / longsPorSegmento)).put((int) (i % longsPorSegmento), origen, off, palabras);
+    }
+
+    /**
+     * Indica si el no terminal con identificador id pertenece a la celda.
+     */
+    public boolean contiene(int fila, int columna, int id) throws IOException {
+        long i = indice(fila, columna) + (id >>> 6);
+        return (segmento((int) (i / longsPorSegmento)).get((int) (i % longsPorSegmento)) & (1L << id)) != 0;
+    }
+
+    /**
+     * Rellena la tabla con el algoritmo CYK, igual que
+     * {@link BitsetChart#rellenar}. Cada celda se calcula en memoria
+     * copiando las dos celdas de cada punto de corte y se escribe una vez.
+     *
+     * @param gramatica Gramática compilada.
+     * @param simbolos Identificadores de los terminales de la palabra.
+     * @param desde Posición de simbolos en la que empieza la palabra.
+     * @throws IOException Si falla la proyección del fichero.
+     */
+    public void rellenar(CompiledGrammar gramatica, int[] simbolos, int desde) throws IOException {
+        int n = longitud;
+        long[] izq = new long[palabras];
+        long[] der = new long[palabras];
+        long[] celda = new long[palabras];
+        for (int j = 0; j < n; j++) {
+            Arrays.fill(celda, 0L);
+            gramatica.celdaTerminal(simbolos[desde + j], celda, 0);
+            escribir(0, j, celda, 0);
+        }
+        for (int i = 2; i <= n; i++) {
+            for (int j = 0; j <= n - i; j++) {
+                Arrays.fill(celda, 0L);
+                for (int k = 1; k < i; k++) {
+                    leer(k - 1, j, izq, 0);
+                    leer(i - k - 1, j + k, der, 0);
+                    gramatica.combinar(izq, 0, der, 0, celda, 0);
+                }
+                escribir(i - 1, j, celda, 0);
+            }
+        }
+    }
+
+    /**
+     * Suelta las proyecciones y borra el fichero.
+     */
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(segmentos, null);
+        canal.close();
+    }
+}
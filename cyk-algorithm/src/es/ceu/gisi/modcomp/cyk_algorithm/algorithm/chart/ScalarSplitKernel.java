@@ -0,0 +1,31 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+/**
+ * Implementación de {@link SplitKernel} palabra a palabra, disponible en
+ * cualquier JVM.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class ScalarSplitKernel implements SplitKernel {
+
+    @Override
+    public String nombre() {
+        return "escalar";
+    }
+
+    @Override
+    public boolean interseca(long[] a, int offA, long[] b, int offB, int palabras) {
+        for (int w = 0; w < palabras; w++) {
+            if ((a[offA + w] & b[offB + w]) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void acumular(long[] origen, int offOrigen, long[] destino, int offDestino, int palabras) {
+        for (int w = 0; w < palabras; w++) {
+            destino[offDestino + w] |= origen[offOrigen + w];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+/**
+ * Operaciones de bits sobre tramos de palabras de 64 bits con las que se
+ * combinan las celdas de la tabla: comprobar si dos tramos comparten algún
+ * bit, que en los vectores de posiciones decide 64 puntos de corte por
+ * palabra, y acumular con OR una fila de la tabla de reglas en una celda.
+ *
+ * {@link SplitKernels} elige la implementación: con instrucciones SIMD si el
+ * módulo jdk.incubator.vector está disponible y escalar si no.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public interface SplitKernel {
+
+    /**
+     * @return Un nombre corto que identifica la implementación, por ejemplo
+     * "escalar".
+     */
+    public String nombre();
+
+    /**
+     * Indica si a[offA, offA + palabras) y b[offB, offB + palabras) tienen
+     * algún bit a 1 en común.
+     */
+    public boolean interseca(long[] a, int offA, long[] b, int offB, int palabras);
+
+    /**
+     * Añade con OR origen[offOrigen, offOrigen + palabras) a
+     * destino[offDestino, offDestino + palabras).
+     */
+    public void acumular(long[] origen, int offOrigen, long[] destino, int offDestino, int palabras);
+}
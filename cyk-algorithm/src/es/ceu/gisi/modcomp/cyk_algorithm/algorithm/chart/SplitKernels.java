@@ -0,0 +1,55 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+/**
+ * Implementaciones disponibles de {@link SplitKernel}.
+ *
+ * La implementación SIMD se usa por defecto cuando se ha compilado (ant
+ * -Dsimd=true) y la JVM se arranca con --add-modules jdk.incubator.vector. Sin
+ * la clase o sin el módulo, o con la propiedad del sistema cyk.simd=false, se
+ * usa la escalar.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class SplitKernels {
+
+    private static final SplitKernel ESCALAR = new ScalarSplitKernel();
+    private static final SplitKernel VECTORIAL = cargarVectorial();
+    private static final SplitKernel PREDETERMINADO =
+            VECTORIAL != null && !"false".equals(System.getProperty("cyk.simd")) ? VECTORIAL : ESCALAR;
+
+    private SplitKernels() {
+    }
+
+    /**
+     * @return La implementación escalar.
+     */
+    public static SplitKernel escalar() {
+        return ESCALAR;
+    }
+
+    /**
+     * @return La implementación SIMD, o null si el módulo
+     * jdk.incubator.vector no está disponible.
+     */
+    public static SplitKernel vectorial() {
+        return VECTORIAL;
+    }
+
+    /**
+     * @return La implementación que usan por defecto la tabla y los motores.
+     */
+    public static SplitKernel predeterminado() {
+        return PREDETERMINADO;
+    }
+
+    private static SplitKernel cargarVectorial() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return null;
+        try {
+            return (SplitKernel) Class.forName(SplitKernels.class.getPackageName() + ".VectorSplitKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
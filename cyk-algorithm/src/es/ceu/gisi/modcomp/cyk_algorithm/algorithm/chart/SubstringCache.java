@@ -0,0 +1,397 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de tablas CYK ya calculadas, para que las palabras con
+ * subcadenas en común con otras analizadas antes no vuelvan a calcular las
+ * celdas de esas subcadenas.
+ *
+ * Cada entrada es una palabra analizada: una copia de sus símbolos y de su
+ * tabla completa. Como el conjunto de no terminales que derivan una subcadena
+ * sólo depende de la subcadena, la tabla de una palabra guardada contiene,
+ * para cualquier subcadena suya, las celdas de todas las subcadenas de ésta.
+ * Antes de rellenar la tabla de una palabra, {@link #sembrar} busca para cada
+ * posición la subcadena más larga que empieza en ella y aparece en alguna
+ * palabra guardada, y copia de la tabla guardada todas las celdas que quedan
+ * dentro; el relleno sólo calcula las demás. Si la palabra entera estaba
+ * guardada, se copia la tabla completa.
+ *
+ * Las subcadenas se localizan por las de {@link #longitudMinima()} símbolos:
+ * un índice concurrente asocia el hash polinómico de cada una, que se calcula
+ * en tiempo constante a partir de los hashes de los prefijos de la palabra,
+ * con las palabras guardadas y posiciones en las que aparece. Las apariciones
+ * apuntan a la copia de la palabra guardada, así que guardar una palabra sólo
+ * copia sus símbolos una vez. Como dos subcadenas distintas pueden tener el
+ * mismo hash, cada aparición se compara símbolo a símbolo antes de usarla, y
+ * después se extiende mientras los símbolos sigan coincidiendo.
+ *
+ * El tamaño se limita por el número total de posiciones de 64 bits de las
+ * tablas guardadas, que es lo que domina la memoria. Al llenarse se descarta
+ * con el algoritmo del reloj (segunda oportunidad), una aproximación de LRU
+ * que no necesita reordenar una lista en cada acierto: las palabras se
+ * recorren de la más antigua a la más reciente, las que se han usado desde la
+ * última pasada se marcan como no usadas y pasan al final, y se descarta la
+ * primera que no se haya usado. Ninguna operación toma un
+ * cerrojo común, así que la caché puede compartirse entre hilos sin que los
+ * análisis se esperen unos a otros.
+ *
+ * Las tablas sólo son válidas para la gramática con la que se calcularon:
+ * cada caché debe usarse con una única gramática compilada.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class SubstringCache {
+
+    /**
+     * Base del hash polinómico, impar para que sus potencias no se anulen
+     * módulo 2^64.
+     */
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Número máximo de apariciones que se guardan de cada subcadena; se
+     * conservan las de las palabras más recientes.
+     */
+    private static final int APARICIONES_MAXIMAS = 4;
+
+    private final int palabras;
+    private final long capacidad;
+    private final int longitudMinima;
+    private final ConcurrentHashMap<Long, Aparicion> indice = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entrada> orden = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numEntradas = new AtomicInteger();
+    private final AtomicLong ocupados = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder celdasReutilizadas = new LongAdder();
+
+    /**
+     * @param palabras Número de palabras de 64 bits de cada celda.
+     * @param capacidad Número máximo de posiciones de 64 bits entre todas las
+     * tablas guardadas.
+     * @param longitudMinima Longitud mínima de las subcadenas que se buscan,
+     * al menos 2.
+     */
+    public SubstringCache(int palabras, long capacidad, int longitudMinima) {
+        this.palabras = palabras;
+        this.capacidad = capacidad;
+        this.longitudMinima = Math.max(2, longitudMinima);
+    }
+
+    /**
+     * Calcula los hashes de los prefijos de la palabra: la posición i
+     * contiene el hash de sus i primeros símbolos.
+     *
+     * @return Un array de longitud + 1 posiciones.
+     */
+    public static long[] prefijos(int[] simbolos, int desde, int longitud) {
+        long[] prefijos = new long[longitud + 1];
+        for (int i = 0; i < longitud; i++) {
+            prefijos[i + 1] = prefijos[i] * BASE + simbolos[desde + i] + 1;
+        }
+        return prefijos;
+    }
+
+    /**
+     * @return Las potencias de la base hasta la indicada, incluida.
+     */
+    public static long[] potencias(int longitud) {
+        long[] potencias = new long[longitud + 1];
+        potencias[0] = 1;
+        for (int i = 1; i <= longitud; i++) {
+            potencias[i] = potencias[i - 1] * BASE;
+        }
+        return potencias;
+    }
+
+    /**
+     * @return El hash de la subcadena [inicio, inicio + longitud) de la
+     * palabra cuyos prefijos se indican.
+     */
+    public static long hash(long[] prefijos, long[] potencias, int inicio, int longitud) {
+        return prefijos[inicio + longitud] - prefijos[inicio] * potencias[longitud];
+    }
+
+    /**
+     * @return La longitud mínima de las subcadenas que se buscan.
+     */
+    public int longitudMinima() {
+        return longitudMinima;
+    }
+
+    /**
+     * Copia en la tabla las celdas de las subcadenas de la palabra que
+     * aparecen en las palabras guardadas. Para cada posición j, alcance[j]
+     * queda con el mayor final de las subcadenas copiadas que empiezan en j o
+     * antes, de modo que la celda de [j, j + l) ya está copiada si y sólo si
+     * j + l <= alcance[j]. Las
+     * posiciones sin ninguna subcadena copiada no se modifican. Las celdas de
+     * la primera fila no se copian.
+     *
+     * Cada búsqueda en una posición que aún no cubre ninguna subcadena
+     * copiada cuenta como un acierto si encuentra una, y como un fallo si no.
+     * Las búsquedas en posiciones ya cubiertas sólo cuentan como aciertos si
+     * encuentran una subcadena que llega más lejos.
+     *
+     * @param simbolos Array con la palabra.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra.
+     * @param tabla Tabla vacía preparada para la palabra.
+     * @param alcance Array de al menos longitud posiciones.
+     * @return TRUE si la palabra entera estaba guardada, y por tanto está
+     * copiada toda su tabla.
+     */
+    public boolean sembrar(int[] simbolos, int desde, int longitud, BitsetChart tabla, int[] alcance) {
+        int k = longitudMinima;
+        if (longitud < k)
+            return false;
+        if (indice.isEmpty()) {
+            fallos.add(longitud - k + 1);
+            return false;
+        }
+        long[] prefijos = prefijos(simbolos, desde, longitud);
+        long[] potencias = potencias(k);
+        long[] celdas = tabla.celdas();
+        // Subcadena copiada que llega más lejos entre las que empiezan antes.
+        Entrada fuente = null;
+        int inicioFuente = 0;
+        int posicionFuente = 0;
+        int finFuente = 0;
+        long copiadas = 0;
+        long encontradas = 0;
+        long perdidas = 0;
+        for (int j = 0; j < longitud - 1; j++) {
+            if (j <= longitud - k) {
+                int finAnterior = finFuente;
+                Aparicion a = indice.get(hash(prefijos, potencias, j, k));
+                for (; a != null; a = a.siguiente) {
+                    Entrada e = a.entrada;
+                    if (!e.viva)
+                        continue;
+                    int fin = j + coincidencia(simbolos, desde + j, longitud - j, e.simbolos, a.posicion);
+                    if (fin - j >= k && fin > finFuente) {
+                        fuente = e;
+                        inicioFuente = j;
+                        posicionFuente = a.posicion;
+                        finFuente = fin;
+                    }
+                }
+                if (finFuente > finAnterior) {
+                    fuente.usada = true;
+                    encontradas++;
+                } else if (finAnterior < j + k) {
+                    perdidas++;
+                }
+            }
+            if (finFuente - j < 2)
+                continue;
+            alcance[j] = finFuente;
+            int m = fuente.simbolos.length;
+            int columna = posicionFuente + j - inicioFuente;
+            for (int fila = 1; j + fila < finFuente; fila++) {
+                System.arraycopy(fuente.tabla, (fila * m - (fila * (fila - 1) >>> 1) + columna) * palabras,
+                        celdas, tabla.indice(fila, j), palabras);
+            }
+            copiadas += finFuente - j - 1;
+        }
+        aciertos.add(encontradas);
+        fallos.add(perdidas);
+        if (copiadas == 0)
+            return false;
+        celdasReutilizadas.add(copiadas);
+        return alcance[0] == longitud;
+    }
+
+    /**
+     * @return El número de símbolos iguales a partir de las posiciones
+     * indicadas de las dos palabras.
+     */
+    private static int coincidencia(int[] palabra, int desde, int maximo, int[] guardada, int posicion) {
+        int limite = Math.min(maximo, guardada.length - posicion);
+        int i = 0;
+        while (i < limite && palabra[desde + i] == guardada[posicion + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Guarda la palabra con su tabla, ya rellenada, descartando con el
+     * algoritmo del reloj otras palabras si se supera la capacidad. Las palabras más cortas que la
+     * longitud mínima o cuya tabla no cabe en la caché no se guardan.
+     *
+     * @param simbolos Array con la palabra.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra.
+     * @param tabla La tabla de la palabra.
+     */
+    public void guardar(int[] simbolos, int desde, int longitud, BitsetChart tabla) {
+        int k = longitudMinima;
+        long tamanio = (long) longitud * (longitud + 1) / 2 * palabras;
+        if (longitud < k || tamanio > capacidad)
+            return;
+        int[] copia = Arrays.copyOfRange(simbolos, desde, desde + longitud);
+        Entrada entrada = new Entrada(copia, Arrays.copyOf(tabla.celdas(), (int) tamanio));
+        long[] prefijos = prefijos(copia, 0, longitud);
+        long[] potencias = potencias(k);
+        for (int p = 0; p <= longitud - k; p++) {
+            int posicion = p;
+            indice.compute(hash(prefijos, potencias, p, k),
+                    (h, primera) -> new Aparicion(entrada, posicion, recortar(primera, null)));
+        }
+        orden.add(entrada);
+        numEntradas.incrementAndGet();
+        ocupados.addAndGet(tamanio);
+        // Cada segunda oportunidad quita una marca, pero otros hilos pueden
+        // volver a marcar las entradas: tras una vuelta entera se descarta la
+        // siguiente aunque esté marcada.
+        int segundas = 0;
+        while (ocupados.get() > capacidad) {
+            Entrada antigua = orden.poll();
+            if (antigua == null)
+                break;
+            if (antigua.usada && segundas++ < numEntradas.get()) {
+                antigua.usada = false;
+                orden.add(antigua);
+            } else {
+                descartar(antigua);
+            }
+        }
+    }
+
+    /**
+     * Quita la palabra guardada del índice y libera su espacio.
+     */
+    private void descartar(Entrada entrada) {
+        entrada.viva = false;
+        numEntradas.decrementAndGet();
+        int longitud = entrada.simbolos.length;
+        long[] prefijos = prefijos(entrada.simbolos, 0, longitud);
+        long[] potencias = potencias(longitudMinima);
+        for (int p = 0; p <= longitud - longitudMinima; p++) {
+            indice.computeIfPresent(hash(prefijos, potencias, p, longitudMinima),
+                    (h, primera) -> recortar(primera, entrada));
+        }
+        ocupados.addAndGet(-entrada.tabla.length);
+    }
+
+    /**
+     * Copia la lista de apariciones sin las de la entrada indicada, ni las de
+     * entradas descartadas, y con a lo sumo {@link #APARICIONES_MAXIMAS} - 1
+     * elementos si la entrada es null, para dejar sitio a una nueva.
+     *
+     * @return La copia, o null si queda vacía.
+     */
+    private static Aparicion recortar(Aparicion primera, Entrada quitada) {
+        int maximo = quitada == null ? APARICIONES_MAXIMAS - 1 : APARICIONES_MAXIMAS;
+        Aparicion[] conservadas = new Aparicion[APARICIONES_MAXIMAS];
+        int n = 0;
+        for (Aparicion a = primera; a != null && n < maximo; a = a.siguiente) {
+            if (a.entrada != quitada && a.entrada.viva)
+                conservadas[n++] = a;
+        }
+        Aparicion copia = null;
+        for (int i = n - 1; i >= 0; i--) {
+            copia = new Aparicion(conservadas[i].entrada, conservadas[i].posicion, copia);
+        }
+        return copia;
+    }
+
+    /**
+     * @return El número de subcadenas guardadas encontradas y copiadas.
+     */
+    public long aciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * @return El número de búsquedas en posiciones no cubiertas por ninguna
+     * subcadena copiada que no han encontrado ninguna.
+     */
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * @return El número de celdas copiadas en lugar de calculadas.
+     */
+    public long celdasReutilizadas() {
+        return celdasReutilizadas.sum();
+    }
+
+    /**
+     * @return El número de palabras guardadas.
+     */
+    public int entradas() {
+        return numEntradas.get();
+    }
+
+    /**
+     * @return El número de posiciones de 64 bits ocupadas por las tablas
+     * guardadas.
+     */
+    public long ocupados() {
+        return ocupados.get();
+    }
+
+    /**
+     * Vacía la caché y pone a cero las estadísticas.
+     */
+    public void limpiar() {
+        for (Entrada e = orden.poll(); e != null; e = orden.poll()) {
+            descartar(e);
+        }
+        aciertos.reset();
+        fallos.reset();
+        celdasReutilizadas.reset();
+    }
+
+    /**
+     * Palabra guardada con su tabla.
+     */
+    private static final class Entrada {
+
+        private final int[] simbolos;
+        private final long[] tabla;
+        /**
+         * FALSE cuando se ha descartado: sus apariciones que aún queden en el
+         * índice se ignoran.
+         */
+        private volatile boolean viva = true;
+        /**
+         * TRUE si se ha copiado alguna subcadena suya desde la última pasada
+         * del reloj. Las palabras nuevas empiezan sin marcar, así que una
+         * racha de palabras que no se repiten se descarta antes que las que
+         * sí se reutilizan.
+         */
+        private volatile boolean usada;
+
+        Entrada(int[] simbolos, long[] tabla) {
+            this.simbolos = simbolos;
+            this.tabla = tabla;
+        }
+    }
+
+    /**
+     * Aparición de una subcadena en una palabra guardada. Las listas de
+     * apariciones no se modifican: para cambiarlas se sustituyen por otras.
+     */
+    private static final class Aparicion {
+
+        private final Entrada entrada;
+        private final int posicion;
+        private final Aparicion siguiente;
+
+        Aparicion(Entrada entrada, int posicion, Aparicion siguiente) {
+            this.entrada = entrada;
+            this.posicion = posicion;
+            this.siguiente = siguiente;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementación de {@link SplitKernel} con la Vector API de
+ * jdk.incubator.vector: procesa en cada instrucción tantas palabras como
+ * quepan en el registro vectorial preferido de la máquina (4 con AVX2, 8 con
+ * AVX-512) y las últimas una a una.
+ *
+ * Sólo puede cargarse si la JVM se ha arrancado con
+ * --add-modules jdk.incubator.vector; {@link SplitKernels} la crea por
+ * reflexión para que el resto de clases no dependa del módulo.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class VectorSplitKernel implements SplitKernel {
+
+    private static final VectorSpecies<Long> ESPECIE = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public String nombre() {
+        return "vector-" + ESPECIE.vectorBitSize();
+    }
+
+    @Override
+    public boolean interseca(long[] a, int offA, long[] b, int offB, int palabras) {
+        int w = 0;
+        for (int limite = ESPECIE.loopBound(palabras); w < limite; w += ESPECIE.length()) {
+            LongVector comunes = LongVector.fromArray(ESPECIE, a, offA + w)
+                    .and(LongVector.fromArray(ESPECIE, b, offB + w));
+            if (comunes.compare(VectorOperators.NE, 0L).anyTrue())
+                return true;
+        }
+        for (; w < palabras; w++) {
+            if ((a[offA + w] & b[offB + w]) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void acumular(long[] origen, int offOrigen, long[] destino, int offDestino, int palabras) {
+        int w = 0;
+        for (int limite = ESPECIE.loopBound(palabras); w < limite; w += ESPECIE.length()) {
+            LongVector.fromArray(ESPECIE, destino, offDestino + w)
+                    .or(LongVector.fromArray(ESPECIE, origen, offOrigen + w))
+                    .intoArray(destino, offDestino + w);
+        }
+        for (; w < palabras; w++) {
+            destino[offDestino + w] |= origen[offOrigen + w];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Motor que calcula de abajo arriba sólo las entradas no vacías de la tabla
+ * CYK, con una agenda, para gramáticas en las que casi todas las celdas
+ * quedan vacías.
+ *
+ * Cada entrada es un no terminal A que deriva la subcadena [inicio, fin). Las
+ * entradas se guardan en arrays de enteros, en el orden en que se descubren,
+ * y las que aún no se han combinado forman la agenda. Al sacar una entrada B
+ * sobre [i, j) de la agenda se combina sólo con las entradas ya procesadas
+ * que la tocan: como hijo izquierdo, con las C que empiezan en j, y como hijo
+ * derecho, con las A' que acaban en i. Las reglas de cada par se localizan con
+ * una búsqueda binaria entre las reglas ordenadas por (B, C). Después la
+ * entrada se enlaza en la lista de las que empiezan en i y en la de las que
+ * acaban en j; las listas también son arrays de enteros, con el siguiente
+ * elemento de cada una.
+ *
+ * El trabajo es proporcional al número de pares de entradas contiguas, no al
+ * de ternas (i, j, k), así que con una tabla con menos de un 1% de celdas
+ * ocupadas se evita casi todo el recorrido de {@link SequentialCYKEngine}. Con
+ * tablas densas ese motor es más rápido.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class AgendaCYKEngine implements ParserEngine {
+
+    @Override
+    public String nombre() {
+        return "cyk-agenda";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> new Agenda(gramatica, longitud).reconoce(simbolos, desde);
+    }
+
+    /**
+     * Estado del análisis de una palabra.
+     */
+    private static final class Agenda {
+
+        private final CompiledGrammar gramatica;
+        private final int longitud;
+        private final LongSet vistas = new LongSet();
+        /**
+         * Primera entrada de la lista de las que empiezan (acaban) en cada
+         * posición, o -1.
+         */
+        private final int[] primeraPorInicio;
+        private final int[] primeraPorFin;
+        private int[] inicios = new int[64];
+        private int[] fines = new int[64];
+        private int[] simbolos = new int[64];
+        private int[] siguientePorInicio = new int[64];
+        private int[] siguientePorFin = new int[64];
+        private int numEntradas;
+
+        Agenda(CompiledGrammar gramatica, int longitud) {
+            this.gramatica = gramatica;
+            this.longitud = longitud;
+            this.primeraPorInicio = new int[longitud + 1];
+            this.primeraPorFin = new int[longitud + 1];
+            Arrays.fill(primeraPorInicio, -1);
+            Arrays.fill(primeraPorFin, -1);
+        }
+
+        boolean reconoce(int[] palabra, int desde) {
+            long[] celda = new long[gramatica.palabras()];
+            for (int j = 0; j < longitud; j++) {
+                Arrays.fill(celda, 0L);
+                gramatica.celdaTerminal(palabra[desde + j], celda, 0);
+                for (int x = 0; x < celda.length; x++) {
+                    long bits = celda[x];
+                    while (bits != 0) {
+                        anadir(j, j + 1, (x << 6) + Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            int axioma = gramatica.axioma();
+            for (int e = 0; e < numEntradas; e++) {
+                int i = inicios[e];
+                int j = fines[e];
+                int b = simbolos[e];
+                if (i == 0 && j == longitud && b == axioma)
+                    return true;
+                // B como hijo izquierdo de las C que empiezan en j.
+                if (j < longitud) {
+                    for (int d = primeraPorInicio[j]; d >= 0; d = siguientePorInicio[d]) {
+                        combinar(b, simbolos[d], i, fines[d]);
+                    }
+                }
+                // B como hijo derecho de las A' que acaban en i.
+                for (int d = primeraPorFin[i]; d >= 0; d = siguientePorFin[d]) {
+                    combinar(simbolos[d], b, inicios[d], j);
+                }
+                siguientePorInicio[e] = primeraPorInicio[i];
+                primeraPorInicio[i] = e;
+                siguientePorFin[e] = primeraPorFin[j];
+                primeraPorFin[j] = e;
+            }
+            return false;
+        }
+
+        /**
+         * Añade a la agenda las cabezas de las reglas A::=BC sobre [i, j).
+         */
+        private void combinar(int b, int c, int i, int j) {
+            int hasta = gramatica.primeraRegla(b + 1);
+            for (int r = primera(gramatica.primeraRegla(b), hasta, c);
+                    r < hasta && gramatica.reglaDerecho(r) == c; r++) {
+                anadir(i, j, gramatica.reglaCabeza(r));
+            }
+        }
+
+        /**
+         * @return La primera regla de [desde, hasta) cuyo hijo derecho es c o
+         * uno posterior.
+         */
+        private int primera(int desde, int hasta, int c) {
+            while (desde < hasta) {
+                int mitad = (desde + hasta) >>> 1;
+                if (gramatica.reglaDerecho(mitad) < c)
+                    desde = mitad + 1;
+                else
+                    hasta = mitad;
+            }
+            return desde;
+        }
+
+        private void anadir(int i, int j, int a) {
+            long clave = ((long) i * (longitud + 1) + j) * gramatica.numNoTerminales() + a;
+            if (!vistas.anadir(clave))
+                return;
+            if (numEntradas == inicios.length) {
+                int capacidad = numEntradas * 2;
+                inicios = Arrays.copyOf(inicios, capacidad);
+                fines = Arrays.copyOf(fines, capacidad);
+                simbolos = Arrays.copyOf(simbolos, capacidad);
+                siguientePorInicio = Arrays.copyOf(siguientePorInicio, capacidad);
+                siguientePorFin = Arrays.copyOf(siguientePorFin, capacidad);
+            }
+            inicios[numEntradas] = i;
+            fines[numEntradas] = j;
+            simbolos[numEntradas++] = a;
+        }
+    }
+}
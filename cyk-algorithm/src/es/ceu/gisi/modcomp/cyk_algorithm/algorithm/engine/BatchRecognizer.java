@@ -0,0 +1,136 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Comprueba lotes de palabras contra una misma gramática compilada.
+ *
+ * Las palabras repetidas se analizan una sola vez, las que descarta el filtro
+ * previo de la gramática no llegan a construir tabla y el resto se ordenan
+ * por longitud, de forma que la tabla del {@link ChartWorkspace} de cada hilo
+ * apenas tiene que crecer. Las tareas se reparten entre los hilos de un
+ * ForkJoinPool y las respuestas se devuelven en el orden de entrada.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class BatchRecognizer {
+
+    /**
+     * Número de palabras distintas por debajo del cual una tarea deja de
+     * dividirse.
+     */
+    private static final int PALABRAS_POR_TAREA = 64;
+
+    private final CompiledGrammar gramatica;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un reconocedor por lotes que usa el pool común de ForkJoin.
+     */
+    public BatchRecognizer(CompiledGrammar gramatica) {
+        this(gramatica, ForkJoinPool.commonPool());
+    }
+
+    public BatchRecognizer(CompiledGrammar gramatica, ForkJoinPool pool) {
+        this.gramatica = gramatica;
+        this.pool = pool;
+    }
+
+    /**
+     * Indica, para cada palabra de la colección, si pertenece al lenguaje
+     * generado por la gramática.
+     *
+     * @param words Las palabras a verificar.
+     * @return Las respuestas en el orden de la colección y el resumen del
+     * lote.
+     * @throws CYKAlgorithmException Si alguna palabra es vacía o contiene
+     * símbolos que no son terminales de la gramática, o si la gramática carece
+     * de axioma. En ese caso no se analiza ninguna palabra.
+     */
+    public BatchResult isDerivedAll(Collection<String> words) throws CYKAlgorithmException {
+        long inicio = System.nanoTime();
+
+        HashMap<String, Integer> vistas = new HashMap<>();
+        int[] unica = new int[words.size()];
+        int[][] codificadas = new int[words.size()][];
+        int numUnicas = 0;
+        int i = 0;
+        for (String word : words) {
+            Integer previa = vistas.putIfAbsent(word, numUnicas);
+            if (previa == null) {
+                codificadas[numUnicas] = gramatica.codificar(word);
+                previa = numUnicas++;
+            }
+            unica[i++] = previa;
+        }
+
+        Integer[] porLongitud = new Integer[numUnicas];
+        for (int u = 0; u < numUnicas; u++) {
+            porLongitud[u] = u;
+        }
+        Arrays.sort(porLongitud, (x, y) -> codificadas[x].length - codificadas[y].length);
+        int[] orden = new int[numUnicas];
+        for (int u = 0; u < numUnicas; u++) {
+            orden[u] = porLongitud[u];
+        }
+
+        boolean[] respuestasUnicas = new boolean[numUnicas];
+        pool.invoke(new Tramo(codificadas, orden, respuestasUnicas, 0, numUnicas));
+
+        boolean[] resultados = new boolean[unica.length];
+        for (int w = 0; w < unica.length; w++) {
+            resultados[w] = respuestasUnicas[unica[w]];
+        }
+        return new BatchResult(resultados, numUnicas, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Analiza las palabras orden[desde..hasta), que están ordenadas por
+     * longitud, con la tabla del espacio de trabajo del hilo.
+     */
+    private final class Tramo extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] codificadas;
+        private final int[] orden;
+        private final boolean[] respuestas;
+        private final int desde;
+        private final int hasta;
+
+        Tramo(int[][] codificadas, int[] orden, boolean[] respuestas, int desde, int hasta) {
+            this.codificadas = codificadas;
+            this.orden = orden;
+            this.respuestas = respuestas;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > PALABRAS_POR_TAREA) {
+                int mitad = (desde + hasta) >>> 1;
+                invokeAll(new Tramo(codificadas, orden, respuestas, desde, mitad),
+                        new Tramo(codificadas, orden, respuestas, mitad, hasta));
+                return;
+            }
+            ChartWorkspace espacio = ChartWorkspace.actual();
+            for (int u = desde; u < hasta; u++) {
+                int[] simbolos = codificadas[orden[u]];
+                if (!gramatica.admitePrefiltro(simbolos, 0, simbolos.length))
+                    continue;
+                BitsetChart tabla = espacio.tabla(simbolos.length, gramatica.palabras());
+                tabla.rellenar(gramatica, simbolos, 0);
+                respuestas[orden[u]] = tabla.contiene(simbolos.length - 1, 0, gramatica.axioma());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+/**
+ * Resultado de comprobar un lote de palabras con {@link BatchRecognizer}: la
+ * respuesta de cada palabra, en el orden de entrada, y un resumen del
+ * rendimiento del lote.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class BatchResult {
+
+    private final boolean[] resultados;
+    private final int palabrasUnicas;
+    private final long nanos;
+
+    BatchResult(boolean[] resultados, int palabrasUnicas, long nanos) {
+        this.resultados = resultados;
+        this.palabrasUnicas = palabrasUnicas;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @param i Posición de la palabra en la colección de entrada.
+     * @return TRUE si la palabra pertenece al lenguaje, FALSE en caso
+     * contrario.
+     */
+    public boolean isDerived(int i) {
+        return resultados[i];
+    }
+
+    /**
+     * @return Una copia de las respuestas, en el orden de entrada.
+     */
+    public boolean[] resultados() {
+        return resultados.clone();
+    }
+
+    /**
+     * @return El número de palabras del lote.
+     */
+    public int palabras() {
+        return resultados.length;
+    }
+
+    /**
+     * @return El número de palabras distintas, que son las que se han
+     * analizado realmente.
+     */
+    public int palabrasUnicas() {
+        return palabrasUnicas;
+    }
+
+    /**
+     * @return El tiempo total del lote en nanosegundos.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * @return El número de palabras del lote procesadas por segundo.
+     */
+    public double palabrasPorSegundo() {
+        return nanos == 0 ? 0 : resultados.length * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d palabras (%d distintas) en %.3f ms, %.0f palabras/s",
+                palabras(), palabrasUnicas, nanos / 1e6, palabrasPorSegundo());
+    }
+}
@@ -0,0 +1,157 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SubstringCache;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseListener;
+
+/**
+ * Motor que aplica el algoritmo CYK recordando, entre una palabra y otra, las
+ * tablas ya calculadas, para las palabras que comparten subcadenas largas.
+ *
+ * Antes de rellenar la tabla se copian de la {@link SubstringCache} las
+ * celdas de todas las subcadenas de la palabra contenidas en alguna de al
+ * menos {@link #longitudMinima()} símbolos que aparezca en una palabra
+ * analizada antes. Después la tabla se rellena fila a fila como en
+ * {@link SequentialCYKEngine}, saltando las celdas copiadas, y se guarda en la
+ * caché. Si la palabra entera ya se había analizado, la respuesta sale de la
+ * tabla copiada sin calcular ninguna celda.
+ *
+ * La caché pertenece a la última gramática analizada con el motor: al llegar
+ * otra gramática se sustituye por una vacía.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class CachedCYKEngine implements ParserEngine {
+
+    private final long capacidad;
+    private final int longitudMinima;
+    private final ParseListener oyente;
+    private volatile Cache cache;
+
+    /**
+     * Crea el motor con una caché de 2^22 posiciones de 64 bits (32 MiB) que
+     * busca subcadenas de al menos 8 símbolos.
+     */
+    public CachedCYKEngine() {
+        this(1 << 22, 8);
+    }
+
+    /**
+     * @param capacidad Número máximo de posiciones de 64 bits de las tablas
+     * que guarda la caché.
+     * @param longitudMinima Longitud mínima de las subcadenas que se buscan en
+     * la caché, al menos 2.
+     */
+    public CachedCYKEngine(long capacidad, int longitudMinima) {
+        this(capacidad, longitudMinima, null);
+    }
+
+    /**
+     * @param capacidad Número máximo de posiciones de 64 bits de las tablas
+     * que guarda la caché.
+     * @param longitudMinima Longitud mínima de las subcadenas que se buscan en
+     * la caché, al menos 2.
+     * @param oyente Oyente que recibe las métricas de las celdas calculadas,
+     * o null para no medir nada.
+     */
+    public CachedCYKEngine(long capacidad, int longitudMinima, ParseListener oyente) {
+        this.capacidad = capacidad;
+        this.longitudMinima = Math.max(2, longitudMinima);
+        this.oyente = oyente;
+    }
+
+    @Override
+    public String nombre() {
+        return "cyk-cache";
+    }
+
+    /**
+     * @return La longitud mínima de las subcadenas que se buscan en la caché.
+     */
+    public int longitudMinima() {
+        return longitudMinima;
+    }
+
+    /**
+     * @return La caché de la última gramática, o null si aún no se ha
+     * analizado ninguna palabra.
+     */
+    public SubstringCache cache() {
+        Cache actual = cache;
+        return actual == null ? null : actual.subcadenas;
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        Cache actual = cache;
+        if (actual == null || actual.gramatica != gramatica) {
+            actual = new Cache(gramatica, new SubstringCache(gramatica.palabras(), capacidad, longitudMinima));
+            cache = actual;
+        }
+        Cache elegida = actual;
+        return (simbolos, desde, longitud) -> reconocer(elegida, simbolos, desde, longitud);
+    }
+
+    private boolean reconocer(Cache cache, int[] simbolos, int desde, int n) {
+        CompiledGrammar gramatica = cache.gramatica;
+        long inicio = oyente == null ? 0 : System.nanoTime();
+        BitsetChart tabla = ChartWorkspace.actual().tabla(n, gramatica.palabras());
+        long[] celdas = tabla.celdas();
+        // La celda de [j, j + i) está copiada si j + i <= alcance[j].
+        int[] alcance = new int[n];
+        if (!cache.subcadenas.sembrar(simbolos, desde, n, tabla, alcance)) {
+            long fin = inicio;
+            for (int j = 0; j < n; j++) {
+                gramatica.celdaTerminal(simbolos[desde + j], celdas, tabla.indice(0, j));
+            }
+            if (oyente != null) {
+                fin = System.nanoTime();
+                oyente.alRellenarFila(1, n, tabla.celdasNoVacias(0), 0, n, fin - inicio);
+            }
+            for (int i = 2; i <= n; i++) {
+                long combinaciones = 0;
+                long consultas = 0;
+                for (int j = 0; j <= n - i; j++) {
+                    if (j + i <= alcance[j])
+                        continue;
+                    int celda = tabla.indice(i - 1, j);
+                    for (int k = 1; k < i; k++) {
+                        consultas += gramatica.combinar(celdas, tabla.indice(k - 1, j),
+                                celdas, tabla.indice(i - k - 1, j + k), celdas, celda);
+                    }
+                    combinaciones += i - 1;
+                }
+                if (oyente != null) {
+                    long anterior = fin;
+                    fin = System.nanoTime();
+                    oyente.alRellenarFila(i, n - i + 1, tabla.celdasNoVacias(i - 1), combinaciones, consultas,
+                            fin - anterior);
+                }
+            }
+            cache.subcadenas.guardar(simbolos, desde, n, tabla);
+        }
+        boolean derivada = tabla.contiene(n - 1, 0, gramatica.axioma());
+        if (oyente != null)
+            oyente.alTerminar(n, derivada, System.nanoTime() - inicio);
+        return derivada;
+    }
+
+    /**
+     * Caché de una gramática concreta.
+     */
+    private static final class Cache {
+
+        private final CompiledGrammar gramatica;
+        private final SubstringCache subcadenas;
+
+        Cache(CompiledGrammar gramatica, SubstringCache subcadenas) {
+            this.gramatica = gramatica;
+            this.subcadenas = subcadenas;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Motor que aplica el algoritmo de Earley sobre las reglas binarias de la
+ * gramática compilada, pensado para gramáticas casi deterministas: sólo se
+ * construyen las subcadenas que puede derivar algún no terminal buscado desde
+ * el axioma, así que en esas gramáticas el trabajo crece casi linealmente con
+ * la longitud de la palabra en lugar de con su cubo.
+ *
+ * Como las reglas son de la forma A::=BC o A::=a y los no terminales derivan
+ * siempre subcadenas no vacías, los elementos de Earley se reducen a tres
+ * tipos, todos guardados en arrays de enteros:
+ * <ul>
+ * <li>Las predicciones de cada posición, A::=·BC, se guardan como la máscara
+ * de no terminales que se buscan a partir de ella. Al buscar un no terminal se
+ * añaden de una vez todos los que pueden empezar por él, precalculados por
+ * cada gramática.</li>
+ * <li>Los elementos A::=B·C, con su regla y su origen, en arrays consecutivos
+ * agrupados por la posición en la que acaba B. Al terminar una posición sus
+ * elementos se ordenan por C, de modo que los que esperan a un no terminal se
+ * localizan con una búsqueda binaria.</li>
+ * <li>Los no terminales completados, con su origen, en una cola por
+ * posición.</li>
+ * </ul>
+ * Los elementos y completados de la posición que se está calculando se
+ * descartan si ya existen con un {@link LongSet} que se vacía al pasar a la
+ * siguiente posición. Si ninguna subcadena acaba en una posición, la
+ * palabra se rechaza sin leer el resto.
+ *
+ * Los no terminales que pueden empezar por cada uno pertenecen a la última
+ * gramática analizada con el motor: al llegar otra se vuelven a calcular.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class EarleyEngine implements ParserEngine {
+
+    private volatile Esquinas esquinas;
+
+    @Override
+    public String nombre() {
+        return "earley";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        Esquinas actuales = esquinas;
+        if (actuales == null || actuales.gramatica != gramatica) {
+            actuales = new Esquinas(gramatica);
+            esquinas = actuales;
+        }
+        Esquinas elegidas = actuales;
+        return (simbolos, desde, longitud) -> new Analisis(elegidas, longitud).reconoce(simbolos, desde);
+    }
+
+    /**
+     * Para cada no terminal A, la máscara de los no terminales por los que
+     * puede empezar una derivación de A, incluido el propio A: el cierre
+     * transitivo de A::=BC sobre B.
+     */
+    private static final class Esquinas {
+
+        private final CompiledGrammar gramatica;
+        private final long[] mascaras;
+
+        Esquinas(CompiledGrammar gramatica) {
+            this.gramatica = gramatica;
+            int n = gramatica.numNoTerminales();
+            int w = gramatica.palabras();
+            this.mascaras = new long[n * w];
+            for (int a = 0; a < n; a++) {
+                mascaras[a * w + (a >>> 6)] |= 1L << a;
+            }
+            for (int r = 0; r < gramatica.numReglasBinarias(); r++) {
+                int b = gramatica.reglaIzquierdo(r);
+                mascaras[gramatica.reglaCabeza(r) * w + (b >>> 6)] |= 1L << b;
+            }
+            // Warshall sobre las filas de bits.
+            for (int k = 0; k < n; k++) {
+                for (int a = 0; a < n; a++) {
+                    if (a != k && (mascaras[a * w + (k >>> 6)] & (1L << k)) != 0) {
+                        for (int x = 0; x < w; x++) {
+                            mascaras[a * w + x] |= mascaras[k * w + x];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado del análisis de una palabra.
+     */
+    private static final class Analisis {
+
+        /**
+         * Bit que distingue en las claves los elementos A::=B·C de los no
+         * terminales completados.
+         */
+        private static final long ELEMENTO = 1L << 31;
+
+        private final CompiledGrammar gramatica;
+        private final long[] esquinas;
+        private final int w;
+        private final int longitud;
+        /**
+         * No terminales que se buscan a partir de cada posición.
+         */
+        private final long[] buscados;
+        /**
+         * No terminales C de los elementos A::=B·C de cada posición.
+         */
+        private final long[] esperados;
+        /**
+         * Los elementos de la posición p son los de inicioPosicion[p] a
+         * inicioPosicion[p + 1] - 1.
+         */
+        private final int[] inicioPosicion;
+        private int[] reglas = new int[16];
+        private int[] origenes = new int[16];
+        private int numElementos;
+        private long[] cola = new long[16];
+        private int finCola;
+        private long[] orden = new long[16];
+        private int[] copia = new int[16];
+        private final LongSet vistos = new LongSet();
+
+        Analisis(Esquinas esquinas, int longitud) {
+            this.gramatica = esquinas.gramatica;
+            this.esquinas = esquinas.mascaras;
+            this.w = gramatica.palabras();
+            this.longitud = longitud;
+            this.buscados = new long[(longitud + 1) * w];
+            this.esperados = new long[(longitud + 1) * w];
+            this.inicioPosicion = new int[longitud + 2];
+        }
+
+        boolean reconoce(int[] simbolos, int desde) {
+            buscar(0, gramatica.axioma());
+            long[] celda = new long[w];
+            for (int j = 0; j < longitud; j++) {
+                int fin = j + 1;
+                inicioPosicion[fin] = numElementos;
+                vistos.vaciar();
+                finCola = 0;
+                Arrays.fill(celda, 0L);
+                gramatica.celdaTerminal(simbolos[desde + j], celda, 0);
+                for (int x = 0; x < w; x++) {
+                    long bits = celda[x] & buscados[j * w + x];
+                    while (bits != 0) {
+                        completar((x << 6) + Long.numberOfTrailingZeros(bits), j);
+                        bits &= bits - 1;
+                    }
+                }
+                if (finCola == 0)
+                    return false;
+                for (int c = 0; c < finCola; c++) {
+                    avanzar((int) cola[c], (int) (cola[c] >>> 32) - 1, fin);
+                }
+                ordenar(inicioPosicion[fin], numElementos);
+            }
+            inicioPosicion[longitud + 1] = numElementos;
+            return vistos.contiene(clave(gramatica.axioma(), 0));
+        }
+
+        /**
+         * Procesa el no terminal a completado sobre [origen, fin): avanza las
+         * reglas que empiezan por a y los elementos que lo esperaban.
+         */
+        private void avanzar(int a, int origen, int fin) {
+            for (int r = gramatica.primeraRegla(a); r < gramatica.primeraRegla(a + 1); r++) {
+                int cabeza = gramatica.reglaCabeza(r);
+                if ((buscados[origen * w + (cabeza >>> 6)] & (1L << cabeza)) != 0
+                        && vistos.anadir(clave(r, origen) | ELEMENTO)) {
+                    anadirElemento(r, origen);
+                    int c = gramatica.reglaDerecho(r);
+                    esperados[fin * w + (c >>> 6)] |= 1L << c;
+                    buscar(fin, c);
+                }
+            }
+            if ((esperados[origen * w + (a >>> 6)] & (1L << a)) == 0)
+                return;
+            int hasta = inicioPosicion[origen + 1];
+            for (int e = primero(inicioPosicion[origen], hasta, a);
+                    e < hasta && gramatica.reglaDerecho(reglas[e]) == a; e++) {
+                completar(gramatica.reglaCabeza(reglas[e]), origenes[e]);
+            }
+        }
+
+        /**
+         * @return El primer elemento de [desde, hasta) que espera a c o a un
+         * no terminal posterior.
+         */
+        private int primero(int desde, int hasta, int c) {
+            while (desde < hasta) {
+                int mitad = (desde + hasta) >>> 1;
+                if (gramatica.reglaDerecho(reglas[mitad]) < c)
+                    desde = mitad + 1;
+                else
+                    hasta = mitad;
+            }
+            return desde;
+        }
+
+        /**
+         * Ordena los elementos de [desde, hasta) por el no terminal que
+         * esperan.
+         */
+        private void ordenar(int desde, int hasta) {
+            int k = hasta - desde;
+            if (k < 2)
+                return;
+            if (orden.length < k) {
+                orden = new long[Math.max(k, orden.length * 2)];
+                copia = new int[orden.length];
+            }
+            for (int i = 0; i < k; i++) {
+                orden[i] = ((long) gramatica.reglaDerecho(reglas[desde + i]) << 32) | i;
+            }
+            Arrays.sort(orden, 0, k);
+            for (int i = 0; i < k; i++) {
+                copia[i] = reglas[desde + (int) orden[i]];
+            }
+            System.arraycopy(copia, 0, reglas, desde, k);
+            for (int i = 0; i < k; i++) {
+                copia[i] = origenes[desde + (int) orden[i]];
+            }
+            System.arraycopy(copia, 0, origenes, desde, k);
+        }
+
+        private void completar(int a, int origen) {
+            long clave = clave(a, origen);
+            if (!vistos.anadir(clave))
+                return;
+            if (finCola == cola.length)
+                cola = Arrays.copyOf(cola, finCola * 2);
+            cola[finCola++] = clave;
+        }
+
+        private void anadirElemento(int r, int origen) {
+            if (numElementos == reglas.length) {
+                reglas = Arrays.copyOf(reglas, numElementos * 2);
+                origenes = Arrays.copyOf(origenes, numElementos * 2);
+            }
+            reglas[numElementos] = r;
+            origenes[numElementos++] = origen;
+        }
+
+        /**
+         * Añade a los buscados desde la posición el no terminal c y todos los
+         * que pueden empezar una derivación suya.
+         */
+        private void buscar(int posicion, int c) {
+            int base = posicion * w;
+            if ((buscados[base + (c >>> 6)] & (1L << c)) != 0)
+                return;
+            for (int x = 0; x < w; x++) {
+                buscados[base + x] |= esquinas[c * w + x];
+            }
+        }
+
+        /**
+         * Clave de un no terminal o regla con su origen. Nunca vale 0.
+         */
+        private static long clave(int id, int origen) {
+            return ((long) (origen + 1) << 32) | id;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Catálogo de motores de análisis. Permite elegir un motor por su nombre,
+ * entre los de la biblioteca y los que otros módulos registran como servicio
+ * de {@link ParserEngine} (un fichero
+ * META-INF/services/es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ParserEngine
+ * con el nombre de la clase), o dejar que se elija según la gramática y la
+ * longitud de la palabra con {@link #auto()}.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class Engines {
+
+    /**
+     * Longitud a partir de la cual {@link #auto()} usa el algoritmo de
+     * Earley con las gramáticas casi deterministas. En palabras más cortas la
+     * tabla de bits de CYK cuesta menos que mantener los conjuntos de Earley.
+     */
+    public static final int LONGITUD_MINIMA_EARLEY = 64;
+
+    /**
+     * Número medio de reglas binarias por no terminal a partir del cual la
+     * gramática no se considera casi determinista.
+     */
+    private static final double RAMIFICACION_MAXIMA_EARLEY = 2.0;
+
+    /**
+     * Memoria máxima, en bytes, de los vectores de {@link SpanBitvectorEngine}
+     * para que {@link #auto()} lo use.
+     */
+    private static final long MEMORIA_MAXIMA_VECTORES = 64L << 20;
+
+    private Engines() {
+    }
+
+    /**
+     * @return Motores nuevos de todos los tipos disponibles: primero los de la
+     * biblioteca y después los registrados como servicio.
+     */
+    public static List<ParserEngine> disponibles() {
+        List<ParserEngine> motores = new ArrayList<>(List.of(new SequentialCYKEngine(), new ParallelCYKEngine(),
+                new AgendaCYKEngine(), new CachedCYKEngine(), new MappedCYKEngine(), new ValiantEngine(),
+                new SpanBitvectorEngine(), new ViterbiEngine(), new EarleyEngine(), auto()));
+        for (ParserEngine motor : ServiceLoader.load(ParserEngine.class)) {
+            motores.add(motor);
+        }
+        return motores;
+    }
+
+    /**
+     * Devuelve un motor nuevo a partir de su nombre. Sólo se crea el motor
+     * pedido; los registrados como servicio se buscan, e instancian uno a uno,
+     * cuando el nombre no es de ninguno de la biblioteca, así que un motor de
+     * servicio que se llame igual que uno de la biblioteca no se usa.
+     *
+     * @param nombre El nombre del motor, por ejemplo "earley".
+     * @return El motor.
+     * @throws CYKAlgorithmException Si no hay ningún motor con ese nombre.
+     */
+    public static ParserEngine porNombre(String nombre) throws CYKAlgorithmException {
+        switch (nombre) {
+            case "cyk":
+                return new SequentialCYKEngine();
+            case "cyk-paralelo":
+                return new ParallelCYKEngine();
+            case "cyk-agenda":
+                return new AgendaCYKEngine();
+            case "cyk-cache":
+                return new CachedCYKEngine();
+            case "cyk-disco":
+                return new MappedCYKEngine();
+            case "valiant":
+                return new ValiantEngine();
+            case "cyk-vectores":
+                return new SpanBitvectorEngine();
+            case "viterbi":
+                return new ViterbiEngine();
+            case "earley":
+                return new EarleyEngine();
+            case "auto":
+                return auto();
+            default:
+                for (ParserEngine motor : ServiceLoader.load(ParserEngine.class)) {
+                    if (motor.nombre().equals(nombre))
+                        return motor;
+                }
+                throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * @return Un motor, llamado "auto", que para cada palabra usa el que
+     * indica {@link #elegir}.
+     */
+    public static ParserEngine auto() {
+        return new Automatico();
+    }
+
+    /**
+     * Elige el motor adecuado para analizar con la gramática una palabra de la
+     * longitud indicada:
+     * <ul>
+     * <li>Earley si la palabra tiene al menos
+     * {@link #LONGITUD_MINIMA_EARLEY} símbolos y la gramática es casi
+     * determinista: pocas reglas binarias por no terminal y, en media, un
+     * solo no terminal por terminal.</li>
+     * <li>Si no, a partir de {@link BitsetChart#LONGITUD_MINIMA_PARALELA}
+     * símbolos, los vectores de posiciones de {@link SpanBitvectorEngine} si
+     * caben en 64 MiB y CYK en paralelo si no.</li>
+     * <li>CYK secuencial en las palabras más cortas.</li>
+     * </ul>
+     *
+     * @param gramatica La gramática compilada.
+     * @param longitud La longitud de la palabra.
+     * @return El nombre del motor elegido.
+     */
+    public static String elegir(CompiledGrammar gramatica, int longitud) {
+        if (longitud >= LONGITUD_MINIMA_EARLEY && casiDeterminista(gramatica))
+            return "earley";
+        if (longitud < BitsetChart.LONGITUD_MINIMA_PARALELA)
+            return "cyk";
+        long memoria = (long) gramatica.numNoTerminales() * longitud * longitud / 4;
+        return memoria <= MEMORIA_MAXIMA_VECTORES ? "cyk-vectores" : "cyk-paralelo";
+    }
+
+    private static boolean casiDeterminista(CompiledGrammar gramatica) {
+        int n = Math.max(1, gramatica.numNoTerminales());
+        int t = Math.max(1, gramatica.numTerminales());
+        return gramatica.numReglasBinarias() <= RAMIFICACION_MAXIMA_EARLEY * n
+                && gramatica.primeraReglaTerminal(gramatica.numTerminales()) <= t;
+    }
+
+    /**
+     * Motor que reparte las palabras entre CYK, CYK en paralelo, los vectores
+     * de posiciones y Earley.
+     */
+    private static final class Automatico implements ParserEngine {
+
+        private final EarleyEngine earley = new EarleyEngine();
+        private final SequentialCYKEngine cyk = new SequentialCYKEngine();
+        private final ParallelCYKEngine paralelo = new ParallelCYKEngine();
+        private final SpanBitvectorEngine vectores = new SpanBitvectorEngine();
+
+        @Override
+        public String nombre() {
+            return "auto";
+        }
+
+        @Override
+        public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+            Recognizer secuencial = cyk.reconocedor(gramatica);
+            // El resto se preparan la primera vez que se eligen, de modo que
+            // las esquinas de Earley o los grupos de reglas de los vectores
+            // sólo se calculan si se van a usar.
+            Recognizer enParalelo = new Perezoso(paralelo, gramatica);
+            Recognizer porVectores = new Perezoso(vectores, gramatica);
+            Recognizer deEarley = new Perezoso(earley, gramatica);
+            return (simbolos, desde, longitud) -> {
+                switch (elegir(gramatica, longitud)) {
+                    case "earley":
+                        return deEarley.reconoce(simbolos, desde, longitud);
+                    case "cyk-paralelo":
+                        return enParalelo.reconoce(simbolos, desde, longitud);
+                    case "cyk-vectores":
+                        return porVectores.reconoce(simbolos, desde, longitud);
+                    default:
+                        return secuencial.reconoce(simbolos, desde, longitud);
+                }
+            };
+        }
+    }
+
+    /**
+     * Reconocedor que prepara el del motor la primera vez que se usa. Si dos
+     * hilos lo usan a la vez pueden prepararlo los dos, y se queda uno de
+     * ellos.
+     */
+    private static final class Perezoso implements Recognizer {
+
+        private final ParserEngine motor;
+        private final CompiledGrammar gramatica;
+        private volatile Recognizer reconocedor;
+
+        Perezoso(ParserEngine motor, CompiledGrammar gramatica) {
+            this.motor = motor;
+            this.gramatica = gramatica;
+        }
+
+        @Override
+        public boolean reconoce(int[] simbolos, int desde, int longitud) {
+            Recognizer preparado = reconocedor;
+            if (preparado == null) {
+                try {
+                    preparado = motor.reconocedor(gramatica);
+                } catch (CYKAlgorithmException e) {
+                    // Los motores del automático admiten las mismas
+                    // gramáticas que el secuencial, que ya la ha aceptado.
+                    throw new AssertionError(e);
+                }
+                reconocedor = preparado;
+            }
+            return preparado.reconoce(simbolos, desde, longitud);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Sesión de análisis incremental: la palabra se recibe símbolo a símbolo y,
+ * tras cada uno, se puede consultar si el prefijo leído hasta el momento
+ * pertenece al lenguaje.
+ *
+ * La tabla se guarda por columnas: la columna e contiene las celdas de las
+ * subcadenas que terminan en la posición e. Al añadir un símbolo sólo se
+ * calcula su columna, desde la subcadena de longitud 1 hasta la que empieza
+ * en la posición 0; las celdas de la izquierda de cada corte ya estaban en
+ * columnas anteriores y las de la derecha se acaban de calcular. Cada símbolo
+ * cuesta O(n^2) en lugar de volver a rellenar la tabla entera.
+ *
+ * Una sesión no es segura para su uso desde varios hilos; la gramática
+ * compilada sí puede compartirse entre sesiones.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class IncrementalParser {
+
+    private final CompiledGrammar gramatica;
+    private final int palabras;
+    private long[] celdas;
+    private int longitud;
+
+    public IncrementalParser(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        this.gramatica = gramatica;
+        this.palabras = gramatica.palabras();
+        this.celdas = new long[16 * palabras];
+    }
+
+    /**
+     * Posición en el array de la celda de la subcadena [inicio, fin].
+     */
+    private int indice(int inicio, int fin) {
+        return ((fin * (fin + 1) >>> 1) + inicio) * palabras;
+    }
+
+    /**
+     * Añade un símbolo al final de la palabra y calcula su columna de la
+     * tabla.
+     *
+     * @param terminal El símbolo leído.
+     * @throws CYKAlgorithmException Si el símbolo no es un terminal de la
+     * gramática. En ese caso la sesión no cambia.
+     */
+    public void append(char terminal) throws CYKAlgorithmException {
+        int id = gramatica.idTerminal(terminal);
+        if (id < 0)
+            throw new CYKAlgorithmException();
+        int fin = longitud;
+        int necesario = indice(0, fin + 1);
+        if (necesario > celdas.length)
+            celdas = Arrays.copyOf(celdas, Math.max(necesario, celdas.length * 2));
+
+        gramatica.celdaTerminal(id, celdas, indice(fin, fin));
+        for (int inicio = fin - 1; inicio >= 0; inicio--) {
+            int celda = indice(inicio, fin);
+            for (int k = inicio; k < fin; k++) {
+                gramatica.combinar(celdas, indice(inicio, k), celdas, indice(k + 1, fin), celdas, celda);
+            }
+        }
+        longitud++;
+    }
+
+    /**
+     * @return TRUE si la palabra leída hasta el momento pertenece al lenguaje,
+     * FALSE en caso contrario o si aún no se ha leído ningún símbolo.
+     */
+    public boolean isCurrentlyDerived() {
+        if (longitud == 0)
+            return false;
+        int axioma = gramatica.axioma();
+        return (celdas[indice(0, longitud - 1) + (axioma >>> 6)] & (1L << axioma)) != 0;
+    }
+
+    /**
+     * @return El número de símbolos leídos.
+     */
+    public int length() {
+        return longitud;
+    }
+
+    /**
+     * Descarta los símbolos leídos para empezar una palabra nueva, conservando
+     * la memoria reservada para la tabla.
+     */
+    public void reset() {
+        Arrays.fill(celdas, 0, indice(0, longitud), 0L);
+        longitud = 0;
+    }
+}
@@ -0,0 +1,72 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+/**
+ * Conjunto de longs con direccionamiento abierto, para los motores que
+ * descartan elementos repetidos sin crear un objeto por elemento.
+ *
+ * Cada hueco guarda la generación en la que se ocupó, de modo que el conjunto
+ * se vacía en tiempo constante pasando a la generación siguiente.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class LongSet {
+
+    private long[] claves = new long[64];
+    private int[] generaciones = new int[64];
+    private int generacion = 1;
+    private int tamanio;
+
+    void vaciar() {
+        generacion++;
+        tamanio = 0;
+    }
+
+    boolean contiene(long clave) {
+        int mascara = claves.length - 1;
+        for (int i = mezclar(clave) & mascara; generaciones[i] == generacion; i = (i + 1) & mascara) {
+            if (claves[i] == clave)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return FALSE si la clave ya estaba.
+     */
+    boolean anadir(long clave) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        for (; generaciones[i] == generacion; i = (i + 1) & mascara) {
+            if (claves[i] == clave)
+                return false;
+        }
+        claves[i] = clave;
+        generaciones[i] = generacion;
+        if (++tamanio * 2 > claves.length)
+            crecer();
+        return true;
+    }
+
+    private void crecer() {
+        long[] anteriores = claves;
+        int[] generacionesAnteriores = generaciones;
+        claves = new long[anteriores.length * 2];
+        generaciones = new int[anteriores.length * 2];
+        int mascara = claves.length - 1;
+        for (int s = 0; s < anteriores.length; s++) {
+            if (generacionesAnteriores[s] != generacion)
+                continue;
+            int i = mezclar(anteriores[s]) & mascara;
+            while (generaciones[i] == generacion) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = anteriores[s];
+            generaciones[i] = generacion;
+        }
+    }
+
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,58 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.MappedChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Motor que aplica el algoritmo CYK con la tabla en un fichero temporal
+ * proyectado en memoria ({@link MappedChart}), para palabras cuya tabla no
+ * cabe en el heap. El fichero se borra en cuanto se conoce la respuesta.
+ *
+ * Los errores de entrada/salida se lanzan como {@link UncheckedIOException},
+ * ya que un {@link Recognizer} no declara excepciones.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class MappedCYKEngine implements ParserEngine {
+
+    private final Path directorio;
+
+    /**
+     * Crea el motor con los ficheros en el directorio temporal del sistema.
+     */
+    public MappedCYKEngine() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param directorio Directorio en el que se crean los ficheros de las
+     * tablas.
+     */
+    public MappedCYKEngine(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    @Override
+    public String nombre() {
+        return "cyk-disco";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> {
+            try (MappedChart tabla = new MappedChart(longitud, gramatica.palabras(), directorio)) {
+                tabla.rellenar(gramatica, simbolos, desde);
+                return tabla.contiene(longitud - 1, 0, gramatica.axioma());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
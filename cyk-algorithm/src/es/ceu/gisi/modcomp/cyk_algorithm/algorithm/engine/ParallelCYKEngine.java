@@ -0,0 +1,45 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Motor que aplica el algoritmo CYK repartiendo cada fila de la tabla entre
+ * los hilos de un ForkJoinPool. Las palabras cortas se analizan de forma
+ * secuencial.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class ParallelCYKEngine implements ParserEngine {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea el motor sobre el pool común de ForkJoin.
+     */
+    public ParallelCYKEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelCYKEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String nombre() {
+        return "cyk-paralelo";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> {
+            BitsetChart tabla = new BitsetChart(longitud, gramatica.palabras());
+            tabla.rellenarParalelo(gramatica, simbolos, desde, pool);
+            return tabla.contiene(longitud - 1, 0, gramatica.axioma());
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+
+/**
+ * Motor de análisis: a partir de una gramática compilada construye un
+ * reconocedor de palabras. Permite elegir en cada llamada el algoritmo con el
+ * que se decide si una palabra pertenece al lenguaje.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public interface ParserEngine {
+
+    /**
+     * @return Un nombre corto que identifica al motor, por ejemplo "cyk".
+     */
+    public String nombre();
+
+    /**
+     * Prepara un reconocedor para la gramática. La gramática compilada
+     * conserva el reconocedor del último motor con el que ha analizado una
+     * palabra, así que no debe depender de cambios posteriores en el motor.
+     *
+     * @param gramatica La gramática compilada.
+     * @return El reconocedor.
+     * @throws CYKAlgorithmException Si la gramática carece de axioma o el
+     * motor no la admite.
+     */
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException;
+}
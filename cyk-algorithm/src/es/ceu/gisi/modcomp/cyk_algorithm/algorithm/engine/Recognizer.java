@@ -0,0 +1,22 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+/**
+ * Reconocedor del lenguaje de una gramática compilada. Trabaja con palabras ya
+ * traducidas a identificadores de terminales. Los reconocedores pueden usarse
+ * desde varios hilos a la vez.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public interface Recognizer {
+
+    /**
+     * Indica si la palabra simbolos[desde..desde+longitud) pertenece al
+     * lenguaje generado por la gramática.
+     *
+     * @param simbolos Identificadores de terminales válidos de la gramática.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra, al menos 1.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     */
+    public boolean reconoce(int[] simbolos, int desde, int longitud);
+}
@@ -0,0 +1,31 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+
+/**
+ * Motor que aplica el algoritmo CYK rellenando la tabla fila a fila en el hilo
+ * que hace la llamada, con la tabla de su {@link ChartWorkspace}.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class SequentialCYKEngine implements ParserEngine {
+
+    @Override
+    public String nombre() {
+        return "cyk";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> {
+            BitsetChart tabla = ChartWorkspace.actual().tabla(longitud, gramatica.palabras());
+            tabla.rellenar(gramatica, simbolos, desde);
+            return tabla.contiene(longitud - 1, 0, gramatica.axioma());
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernel;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernels;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Motor que comprueba 64 puntos de corte a la vez, guardando la tabla CYK
+ * como vectores de bits de posiciones en lugar de celdas de no terminales.
+ *
+ * Para cada no terminal A y posición i se guarda el vector de las posiciones
+ * j tales que A deriva [i, j), y para cada posición j el vector traspuesto de
+ * las posiciones i. Así, una regla A::=BC cubre [i, j) si y sólo si el
+ * vector de finales de B en i y el de inicios de C en j comparten algún bit:
+ * ese bit es un punto de corte k, y cada AND de palabras decide 64 de ellos.
+ * Las reglas con los mismos B y C se comprueban una sola vez. El AND se hace
+ * con un {@link SplitKernel}, que con la Vector API recorre varias palabras
+ * por instrucción.
+ *
+ * Las subcadenas se calculan por longitudes crecientes, de modo que el primer
+ * final que se encuentra para B en i es el menor y el primer inicio para C en
+ * j es el mayor. Sólo se recorren las palabras entre ambos, y ninguna si B no
+ * deriva nada desde i o C nada hasta j.
+ *
+ * La memoria necesaria es |N| * n^2 / 4 bytes para una palabra de longitud n,
+ * así que, como {@link ValiantEngine}, está pensado para gramáticas con pocos
+ * no terminales y palabras largas.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class SpanBitvectorEngine implements ParserEngine {
+
+    private final SplitKernel kernel;
+
+    /**
+     * Crea el motor con la implementación
+     * {@link SplitKernels#predeterminado()}.
+     */
+    public SpanBitvectorEngine() {
+        this(SplitKernels.predeterminado());
+    }
+
+    /**
+     * @param kernel La implementación con la que se comparan los vectores.
+     */
+    public SpanBitvectorEngine(SplitKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    @Override
+    public String nombre() {
+        return "cyk-vectores";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        // Primera regla de cada grupo de reglas con los mismos B y C.
+        int numReglas = gramatica.numReglasBinarias();
+        int[] grupos = new int[numReglas + 1];
+        int numGrupos = 0;
+        for (int r = 0; r < numReglas; r++) {
+            if (r == 0 || gramatica.reglaIzquierdo(r) != gramatica.reglaIzquierdo(r - 1)
+                    || gramatica.reglaDerecho(r) != gramatica.reglaDerecho(r - 1))
+                grupos[numGrupos++] = r;
+        }
+        grupos[numGrupos] = numReglas;
+        int[] inicioGrupo = Arrays.copyOf(grupos, numGrupos + 1);
+        return (simbolos, desde, longitud) -> new Vectores(gramatica, inicioGrupo, kernel, longitud)
+                .reconoce(simbolos, desde);
+    }
+
+    /**
+     * Estado del análisis de una palabra.
+     */
+    private static final class Vectores {
+
+        private final CompiledGrammar gramatica;
+        private final int[] inicioGrupo;
+        private final SplitKernel kernel;
+        private final int longitud;
+        private final int palabrasFila;
+        /**
+         * finales[A][i * palabrasFila + (j >>> 6)] tiene el bit j si A deriva
+         * [i, j); inicios[A][j * palabrasFila + (i >>> 6)], el bit i.
+         */
+        private final long[][] finales;
+        private final long[][] inicios;
+        /**
+         * Menor final de A desde i, o Integer.MAX_VALUE si no tiene ninguno.
+         */
+        private final int[] menorFinal;
+        /**
+         * Mayor inicio de A hasta j, o -1 si no tiene ninguno.
+         */
+        private final int[] mayorInicio;
+
+        Vectores(CompiledGrammar gramatica, int[] inicioGrupo, SplitKernel kernel, int longitud) {
+            this.gramatica = gramatica;
+            this.inicioGrupo = inicioGrupo;
+            this.kernel = kernel;
+            this.longitud = longitud;
+            this.palabrasFila = (longitud + 64) >>> 6;
+            int n = gramatica.numNoTerminales();
+            this.finales = new long[n][(longitud + 1) * palabrasFila];
+            this.inicios = new long[n][(longitud + 1) * palabrasFila];
+            this.menorFinal = new int[n * (longitud + 1)];
+            this.mayorInicio = new int[n * (longitud + 1)];
+            Arrays.fill(menorFinal, Integer.MAX_VALUE);
+            Arrays.fill(mayorInicio, -1);
+        }
+
+        boolean reconoce(int[] simbolos, int desde) {
+            long[] celda = new long[gramatica.palabras()];
+            for (int i = 0; i < longitud; i++) {
+                Arrays.fill(celda, 0L);
+                gramatica.celdaTerminal(simbolos[desde + i], celda, 0);
+                for (int x = 0; x < celda.length; x++) {
+                    long bits = celda[x];
+                    while (bits != 0) {
+                        marcar((x << 6) + Long.numberOfTrailingZeros(bits), i, i + 1);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            for (int l = 2; l <= longitud; l++) {
+                for (int i = 0, j = l; j <= longitud; i++, j++) {
+                    for (int g = 0; g < inicioGrupo.length - 1; g++) {
+                        int r = inicioGrupo[g];
+                        int hasta = inicioGrupo[g + 1];
+                        if (!faltaAlguna(r, hasta, i, j)
+                                || !corte(gramatica.reglaIzquierdo(r), gramatica.reglaDerecho(r), i, j))
+                            continue;
+                        for (; r < hasta; r++) {
+                            marcar(gramatica.reglaCabeza(r), i, j);
+                        }
+                    }
+                }
+            }
+            return contiene(gramatica.axioma(), 0, longitud);
+        }
+
+        /**
+         * @return TRUE si alguna cabeza de las reglas [desde, hasta) aún no
+         * deriva [i, j).
+         */
+        private boolean faltaAlguna(int desde, int hasta, int i, int j) {
+            for (int r = desde; r < hasta; r++) {
+                if (!contiene(gramatica.reglaCabeza(r), i, j))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return TRUE si hay un k con B derivando [i, k) y C derivando [k, j).
+         */
+        private boolean corte(int b, int c, int i, int j) {
+            int primero = Math.max(i + 1, menorFinal[b * (longitud + 1) + i]);
+            int ultimo = Math.min(j - 1, mayorInicio[c * (longitud + 1) + j]);
+            if (primero > ultimo)
+                return false;
+            int w = primero >>> 6;
+            return kernel.interseca(finales[b], i * palabrasFila + w, inicios[c], j * palabrasFila + w,
+                    (ultimo >>> 6) - w + 1);
+        }
+
+        private boolean contiene(int a, int i, int j) {
+            return (finales[a][i * palabrasFila + (j >>> 6)] & (1L << j)) != 0;
+        }
+
+        private void marcar(int a, int i, int j) {
+            finales[a][i * palabrasFila + (j >>> 6)] |= 1L << j;
+            inicios[a][j * palabrasFila + (i >>> 6)] |= 1L << i;
+            int p = a * (longitud + 1);
+            if (menorFinal[p + i] == Integer.MAX_VALUE)
+                menorFinal[p + i] = j;
+            if (mayorInicio[p + j] < 0)
+                mayorInicio[p + j] = i;
+        }
+    }
+}
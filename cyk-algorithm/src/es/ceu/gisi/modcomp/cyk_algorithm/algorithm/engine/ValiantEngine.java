@@ -0,0 +1,266 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Motor que reduce el reconocimiento a productos de matrices booleanas, según
+ * el algoritmo de Valiant en la formulación de Okhotin ("Parsing by matrix
+ * multiplication generalized to Boolean grammars", 2014).
+ *
+ * Para cada no terminal A se guarda una matriz booleana T_A de tamaño S x S,
+ * con S la menor potencia de dos mayor que la longitud de la palabra, en la
+ * que T_A[i][j] indica que A deriva la subcadena [i, j). La tabla se completa
+ * por bloques dividiendo recursivamente en cuadrantes; todo el trabajo de
+ * combinar celdas se hace en productos de bloques T_B x T_C acumulados sobre
+ * T_A, uno por cada regla A::=BC. Como la unión distribuye sobre los productos,
+ * no hace falta guardar los conjuntos de pares intermedios del algoritmo
+ * original.
+ *
+ * Las filas de las matrices se guardan empaquetadas en palabras de 64 bits, de
+ * modo que cada producto avanza 64 columnas por operación. Los bloques grandes
+ * se multiplican con el método de los cuatro rusos: para cada grupo de 8 filas
+ * de T_C se precalculan sus 256 combinaciones y cada byte de T_B se resuelve
+ * con un único OR de fila.
+ *
+ * La memoria necesaria es |N| * S^2 bits, así que este motor está pensado para
+ * gramáticas con pocos no terminales y palabras largas.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class ValiantEngine implements ParserEngine {
+
+    /**
+     * Tamaño de bloque a partir del cual se usa el método de los cuatro rusos.
+     */
+    private static final int BLOQUE_CUATRO_RUSOS = 512;
+
+    private final boolean cuatroRusos;
+
+    /**
+     * Crea el motor usando el método de los cuatro rusos en los bloques
+     * grandes.
+     */
+    public ValiantEngine() {
+        this(true);
+    }
+
+    /**
+     * @param cuatroRusos FALSE para multiplicar siempre recorriendo los bits
+     * de T_B uno a uno.
+     */
+    public ValiantEngine(boolean cuatroRusos) {
+        this.cuatroRusos = cuatroRusos;
+    }
+
+    @Override
+    public String nombre() {
+        return "valiant";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0)
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> new Matrices(gramatica, longitud, cuatroRusos)
+                .reconoce(simbolos, desde);
+    }
+
+    /**
+     * Estado de un análisis: las matrices T_A de todos los no terminales.
+     */
+    private static final class Matrices {
+
+        private final CompiledGrammar gramatica;
+        private final int longitud;
+        private final int tamanio;
+        private final int palabrasFila;
+        private final long[][] t;
+        private final boolean cuatroRusos;
+        private long[] combinaciones;
+
+        Matrices(CompiledGrammar gramatica, int longitud, boolean cuatroRusos) {
+            this.gramatica = gramatica;
+            this.longitud = longitud;
+            this.tamanio = Math.max(2, Integer.highestOneBit(longitud) << 1);
+            this.palabrasFila = Math.max(1, tamanio >>> 6);
+            this.t = new long[gramatica.numNoTerminales()][tamanio * palabrasFila];
+            this.cuatroRusos = cuatroRusos;
+        }
+
+        boolean reconoce(int[] simbolos, int desde) {
+            int palabras = gramatica.palabras();
+            long[] celda = new long[palabras];
+            for (int i = 0; i < longitud; i++) {
+                Arrays.fill(celda, 0L);
+                gramatica.celdaTerminal(simbolos[desde + i], celda, 0);
+                for (int w = 0; w < palabras; w++) {
+                    long bits = celda[w];
+                    while (bits != 0) {
+                        int a = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        marcar(a, i, i + 1);
+                    }
+                }
+            }
+            calcular(0, tamanio);
+            return contiene(gramatica.axioma(), 0, longitud);
+        }
+
+        private void marcar(int a, int i, int j) {
+            t[a][i * palabrasFila + (j >>> 6)] |= 1L << j;
+        }
+
+        private boolean contiene(int a, int i, int j) {
+            return (t[a][i * palabrasFila + (j >>> 6)] & (1L << j)) != 0;
+        }
+
+        /**
+         * Calcula todas las celdas T[i][j] con l <= i < j < m.
+         */
+        private void calcular(int l, int m) {
+            int mitad = (l + m) >>> 1;
+            if (m - l >= 4) {
+                calcular(l, mitad);
+                calcular(mitad, m);
+            }
+            completar(l, mitad, mitad, m);
+        }
+
+        /**
+         * Completa el bloque de filas [l, m) y columnas [l2, m2), sabiendo que
+         * los bloques diagonales [l, m) x [l, m) y [l2, m2) x [l2, m2) están
+         * calculados y que el bloque ya acumula las combinaciones con punto de
+         * corte en [m, l2).
+         */
+        private void completar(int l, int m, int l2, int m2) {
+            int b = m - l;
+            if (b == 1)
+                return;
+            int h = b >>> 1;
+            int m1 = l + h;
+            int m12 = l2 + h;
+            completar(m1, m, l2, m12);
+            multiplicar(l, m1, l2, h);
+            completar(l, m1, l2, m12);
+            multiplicar(m1, l2, m12, h);
+            completar(m1, m, m12, m2);
+            multiplicar(l, m1, m12, h);
+            multiplicar(l, l2, m12, h);
+            completar(l, m1, m12, m2);
+        }
+
+        /**
+         * Para cada regla A::=BC acumula en el bloque de T_A con filas
+         * [fila, fila + b) y columnas [columna, columna + b) el producto del
+         * bloque de T_B con columnas [corte, corte + b) por el bloque de T_C
+         * con filas [corte, corte + b).
+         */
+        private void multiplicar(int fila, int corte, int columna, int b) {
+            for (int r = 0; r < gramatica.numReglasBinarias(); r++) {
+                long[] ta = t[gramatica.reglaCabeza(r)];
+                long[] tb = t[gramatica.reglaIzquierdo(r)];
+                long[] tc = t[gramatica.reglaDerecho(r)];
+                if (b < 64)
+                    multiplicarPequenio(ta, tb, tc, fila, corte, columna, b);
+                else if (cuatroRusos && b >= BLOQUE_CUATRO_RUSOS)
+                    multiplicarCuatroRusos(ta, tb, tc, fila, corte, columna, b);
+                else
+                    multiplicarGrande(ta, tb, tc, fila, corte, columna, b);
+            }
+        }
+
+        /**
+         * Producto de bloques de menos de 64 columnas: cada fila del bloque
+         * cabe en una única palabra.
+         */
+        private void multiplicarPequenio(long[] ta, long[] tb, long[] tc, int fila, int corte, int columna, int b) {
+            long mascaraCorte = ((1L << b) - 1) << (corte & 63);
+            long mascaraColumna = ((1L << b) - 1) << (columna & 63);
+            int palabraCorte = corte >>> 6;
+            int palabraColumna = columna >>> 6;
+            for (int i = fila; i < fila + b; i++) {
+                long bits = tb[i * palabrasFila + palabraCorte] & mascaraCorte;
+                long acumulado = 0;
+                while (bits != 0) {
+                    int k = (palabraCorte << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    acumulado |= tc[k * palabrasFila + palabraColumna];
+                }
+                ta[i * palabrasFila + palabraColumna] |= acumulado & mascaraColumna;
+            }
+        }
+
+        /**
+         * Producto de bloques de 64 columnas o más, recorriendo los bits de
+         * T_B y sumando con OR las filas de T_C correspondientes.
+         */
+        private void multiplicarGrande(long[] ta, long[] tb, long[] tc, int fila, int corte, int columna, int b) {
+            int palabrasBloque = b >>> 6;
+            int primeraCorte = corte >>> 6;
+            int primeraColumna = columna >>> 6;
+            for (int i = fila; i < fila + b; i++) {
+                int destino = i * palabrasFila + primeraColumna;
+                for (int wk = 0; wk < palabrasBloque; wk++) {
+                    long bits = tb[i * palabrasFila + primeraCorte + wk];
+                    while (bits != 0) {
+                        int k = ((primeraCorte + wk) << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        int origen = k * palabrasFila + primeraColumna;
+                        for (int w = 0; w < palabrasBloque; w++) {
+                            ta[destino + w] |= tc[origen + w];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Producto de bloques grandes por el método de los cuatro rusos.
+         */
+        private void multiplicarCuatroRusos(long[] ta, long[] tb, long[] tc, int fila, int corte, int columna, int b) {
+            int palabrasBloque = b >>> 6;
+            int primeraColumna = columna >>> 6;
+            if (bloqueVacio(tb, fila, corte, b))
+                return;
+            if (combinaciones == null || combinaciones.length < 256 * palabrasBloque)
+                combinaciones = new long[256 * palabrasBloque];
+            long[] tabla = combinaciones;
+            for (int g = corte; g < corte + b; g += 8) {
+                // tabla[x] es el OR de las filas g + i de T_C con el bit i de x.
+                Arrays.fill(tabla, 0, palabrasBloque, 0L);
+                for (int x = 1; x < 256; x++) {
+                    int anterior = (x & (x - 1)) * palabrasBloque;
+                    int origen = (g + Integer.numberOfTrailingZeros(x)) * palabrasFila + primeraColumna;
+                    int destino = x * palabrasBloque;
+                    for (int w = 0; w < palabrasBloque; w++) {
+                        tabla[destino + w] = tabla[anterior + w] | tc[origen + w];
+                    }
+                }
+                for (int i = fila; i < fila + b; i++) {
+                    int x = (int) (tb[i * palabrasFila + (g >>> 6)] >>> (g & 63)) & 0xFF;
+                    if (x == 0)
+                        continue;
+                    int destino = i * palabrasFila + primeraColumna;
+                    int origen = x * palabrasBloque;
+                    for (int w = 0; w < palabrasBloque; w++) {
+                        ta[destino + w] |= tabla[origen + w];
+                    }
+                }
+            }
+        }
+
+        private boolean bloqueVacio(long[] m, int fila, int columna, int b) {
+            int primera = columna >>> 6;
+            int palabrasBloque = b >>> 6;
+            for (int i = fila; i < fila + b; i++) {
+                for (int w = 0; w < palabrasBloque; w++) {
+                    if (m[i * palabrasFila + primera + w] != 0)
+                        return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.util.Arrays;
+
+/**
+ * Motor CYK probabilístico: además de decidir si la palabra pertenece al
+ * lenguaje, calcula el árbol de derivación más probable (algoritmo de
+ * Viterbi) según las probabilidades de las producciones.
+ *
+ * Las puntuaciones son logaritmos de probabilidades, de modo que se suman en
+ * lugar de multiplicarse y no se pierde precisión en palabras largas. Se
+ * guardan en un array de doubles indexado por celda y no terminal, y junto a
+ * cada una la regla y el punto de corte que la han producido, en dos arrays de
+ * enteros. Las reglas se recorren con los índices de la gramática compilada
+ * (por hijo izquierdo las binarias y por terminal las de tipo A::=a), sin
+ * consultar mapas ni crear objetos por celda.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class ViterbiEngine implements ParserEngine {
+
+    @Override
+    public String nombre() {
+        return "viterbi";
+    }
+
+    @Override
+    public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0 || !gramatica.esFNC())
+            throw new CYKAlgorithmException();
+        return (simbolos, desde, longitud) -> {
+            try {
+                return analizar(gramatica, simbolos, desde, longitud).isDerived();
+            } catch (CYKAlgorithmException e) {
+                // Como las tablas de bits del resto de motores.
+                throw new OutOfMemoryError("Tabla de Viterbi demasiado grande para " + longitud + " símbolos");
+            }
+        };
+    }
+
+    /**
+     * Calcula el análisis más probable de una palabra.
+     *
+     * @param gramatica Gramática compilada.
+     * @param word La palabra a analizar.
+     * @return El análisis más probable.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived, o si
+     * la gramática no está en FNC: los árboles de una gramática transformada
+     * no corresponden a las producciones introducidas.
+     */
+    public ViterbiParse analizar(CompiledGrammar gramatica, String word) throws CYKAlgorithmException {
+        if (!gramatica.esFNC())
+            throw new CYKAlgorithmException();
+        int[] simbolos = gramatica.codificar(word);
+        return analizar(gramatica, simbolos, 0, simbolos.length);
+    }
+
+    /**
+     * Calcula el análisis más probable de la palabra que ocupa las posiciones
+     * [desde, desde + longitud) de simbolos.
+     *
+     * @param gramatica Gramática compilada, con axioma.
+     * @param simbolos Identificadores de terminales válidos de la gramática.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra, al menos 1.
+     * @return El análisis más probable.
+     * @throws CYKAlgorithmException Si las tablas de la palabra no caben en
+     * un array.
+     */
+    public ViterbiParse analizar(CompiledGrammar gramatica, int[] simbolos, int desde, int longitud)
+            throws CYKAlgorithmException {
+        int n = gramatica.numNoTerminales();
+        int tamanio = tamanio(longitud, n);
+        double[] puntuaciones = new double[tamanio];
+        int[] reglas = new int[tamanio];
+        int[] cortes = new int[tamanio];
+        Arrays.fill(puntuaciones, Double.NEGATIVE_INFINITY);
+
+        for (int j = 0; j < longitud; j++) {
+            int base = ViterbiParse.celda(longitud, 0, j) * n;
+            int t = simbolos[desde + j];
+            for (int i = gramatica.primeraReglaTerminal(t); i < gramatica.primeraReglaTerminal(t + 1); i++) {
+                int a = gramatica.reglaTerminalCabeza(i);
+                double p = gramatica.logProbabilidadTerminal(i);
+                if (p > puntuaciones[base + a])
+                    puntuaciones[base + a] = p;
+            }
+        }
+        for (int i = 2; i <= longitud; i++) {
+            for (int j = 0; j <= longitud - i; j++) {
+                int destino = ViterbiParse.celda(longitud, i - 1, j) * n;
+                for (int k = 1; k < i; k++) {
+                    int izq = ViterbiParse.celda(longitud, k - 1, j) * n;
+                    int der = ViterbiParse.celda(longitud, i - k - 1, j + k) * n;
+                    for (int b = 0; b < n; b++) {
+                        double pb = puntuaciones[izq + b];
+                        if (pb == Double.NEGATIVE_INFINITY)
+                            continue;
+                        for (int r = gramatica.primeraRegla(b); r < gramatica.primeraRegla(b + 1); r++) {
+                            double pc = puntuaciones[der + gramatica.reglaDerecho(r)];
+                            if (pc == Double.NEGATIVE_INFINITY)
+                                continue;
+                            int a = destino + gramatica.reglaCabeza(r);
+                            double p = pb + pc + gramatica.logProbabilidad(r);
+                            if (p > puntuaciones[a]) {
+                                puntuaciones[a] = p;
+                                reglas[a] = r;
+                                cortes[a] = k;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new ViterbiParse(gramatica, simbolos, desde, longitud, puntuaciones, reglas, cortes);
+    }
+
+    /**
+     * @return El número de posiciones de las tablas: una por celda y no
+     * terminal.
+     * @throws CYKAlgorithmException Si no caben en un array.
+     */
+    private static int tamanio(int longitud, int n) throws CYKAlgorithmException {
+        long posiciones = (long) longitud * (longitud + 1) / 2 * n;
+        if (posiciones > Integer.MAX_VALUE - 8)
+            throw new CYKAlgorithmException();
+        return (int) posiciones;
+    }
+}
@@ -0,0 +1,88 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest.ParseTree;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+
+/**
+ * Resultado de {@link ViterbiEngine}: la puntuación del análisis más probable
+ * de la palabra y los punteros con los que se reconstruye su árbol.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ViterbiParse {
+
+    private final CompiledGrammar gramatica;
+    private final int[] simbolos;
+    private final int desde;
+    private final int longitud;
+    private final double[] puntuaciones;
+    private final int[] reglas;
+    private final int[] cortes;
+
+    ViterbiParse(CompiledGrammar gramatica, int[] simbolos, int desde, int longitud,
+            double[] puntuaciones, int[] reglas, int[] cortes) {
+        this.gramatica = gramatica;
+        this.simbolos = simbolos;
+        this.desde = desde;
+        this.longitud = longitud;
+        this.puntuaciones = puntuaciones;
+        this.reglas = reglas;
+        this.cortes = cortes;
+    }
+
+    /**
+     * Número de la celda de la fila y columna indicadas en una tabla
+     * triangular para una palabra de la longitud dada.
+     */
+    static int celda(int longitud, int fila, int columna) {
+        return fila * longitud - (fila * (fila - 1) >>> 1) + columna;
+    }
+
+    private int raiz() {
+        return celda(longitud, longitud - 1, 0) * gramatica.numNoTerminales() + gramatica.axioma();
+    }
+
+    /**
+     * @return TRUE si la palabra pertenece al lenguaje.
+     */
+    public boolean isDerived() {
+        return puntuaciones[raiz()] != Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return El logaritmo natural de la probabilidad del análisis más
+     * probable, o -infinito si la palabra no pertenece al lenguaje.
+     */
+    public double logProbabilidad() {
+        return puntuaciones[raiz()];
+    }
+
+    /**
+     * @return La probabilidad del análisis más probable, 0 si la palabra no
+     * pertenece al lenguaje.
+     */
+    public double probabilidad() {
+        return Math.exp(logProbabilidad());
+    }
+
+    /**
+     * @return El árbol de derivación más probable, o null si la palabra no
+     * pertenece al lenguaje.
+     */
+    public ParseTree mejorArbol() {
+        if (!isDerived())
+            return null;
+        return construir(longitud - 1, 0, gramatica.axioma());
+    }
+
+    private ParseTree construir(int fila, int columna, int a) {
+        if (fila == 0)
+            return new ParseTree(gramatica.noTerminal(a), columna, gramatica.terminal(simbolos[desde + columna]));
+        int i = celda(longitud, fila, columna) * gramatica.numNoTerminales() + a;
+        int r = reglas[i];
+        int k = cortes[i];
+        return new ParseTree(gramatica.noTerminal(a),
+                construir(k - 1, columna, gramatica.reglaIzquierdo(r)),
+                construir(fila - k, columna + k, gramatica.reglaDerecho(r)));
+    }
+}
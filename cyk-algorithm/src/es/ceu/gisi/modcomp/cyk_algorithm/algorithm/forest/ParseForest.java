@@ -0,0 +1,316 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Bosque compartido de análisis (SPPF) de una palabra: representa a la vez
+ * todos los árboles de derivación, compartiendo los subárboles comunes.
+ *
+ * Mientras se rellena la tabla CYK se guarda, para cada celda, un nodo
+ * empaquetado por cada forma de obtener uno de sus no terminales: la regla
+ * A::=BC aplicada y el punto de corte. Cada nodo ocupa un único long, con la
+ * cabeza A en los bits altos, de modo que al ordenar los nodos de una celda
+ * quedan agrupados por no terminal y se localizan con una búsqueda binaria.
+ *
+ * Los árboles se recorren con {@link #trees()} de forma perezosa, como un
+ * cuentakilómetros: cada árbol queda determinado por la alternativa elegida en
+ * cada nodo, en preorden, y el siguiente se obtiene incrementando la última
+ * elección que aún tiene alternativas. Sólo se guarda el árbol actual, así que
+ * los primeros árboles se obtienen enseguida aunque haya un número
+ * exponencial de ellos.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ParseForest {
+
+    private static final int BITS_CORTE = 22;
+    private static final int BITS_REGLA = 25;
+    private static final int DESPLAZAMIENTO_CABEZA = BITS_CORTE + BITS_REGLA;
+    private static final long MASCARA_CORTE = (1L << BITS_CORTE) - 1;
+    private static final long MASCARA_REGLA = (1L << BITS_REGLA) - 1;
+
+    private final CompiledGrammar gramatica;
+    private final int[] simbolos;
+    private final int longitud;
+    private final BitsetChart tabla;
+    private final int[] inicioCelda;
+    private final long[] nodos;
+
+    /**
+     * Rellena la tabla CYK de la palabra guardando los nodos empaquetados.
+     * Si el filtro previo de la gramática descarta la palabra, el bosque queda
+     * vacío sin rellenar la tabla.
+     *
+     * @param gramatica Gramática compilada.
+     * @param simbolos Identificadores de los terminales de la palabra, como
+     * los devuelve {@link CompiledGrammar#codificar(String)}.
+     * @throws CYKAlgorithmException Si la gramática carece de axioma o no está
+     * en FNC, si la palabra es vacía, o si la palabra o el número de reglas
+     * binarias son demasiado grandes para guardarlos en un nodo empaquetado.
+     */
+    public ParseForest(CompiledGrammar gramatica, int[] simbolos) throws CYKAlgorithmException {
+        if (gramatica.axioma() < 0 || !gramatica.esFNC() || simbolos.length == 0 || simbolos.length > MASCARA_CORTE
+                || gramatica.numReglasBinarias() > MASCARA_REGLA + 1)
+            throw new CYKAlgorithmException();
+        this.gramatica = gramatica;
+        this.simbolos = simbolos;
+        this.longitud = simbolos.length;
+        if (!gramatica.admitePrefiltro(simbolos, 0, longitud)) {
+            this.tabla = null;
+            this.inicioCelda = null;
+            this.nodos = new long[0];
+            return;
+        }
+        this.tabla = new BitsetChart(longitud, gramatica.palabras());
+        int numCeldas = celda(longitud - 1, 0) + 1;
+        this.inicioCelda = new int[numCeldas + 1];
+        this.nodos = rellenar();
+    }
+
+    /**
+     * Número de la celda de la fila (longitud - 1) y columna (inicio)
+     * indicadas, en el mismo orden que la tabla triangular.
+     */
+    private int celda(int fila, int columna) {
+        return fila * longitud - (fila * (fila - 1) >>> 1) + columna;
+    }
+
+    /**
+     * Rellena la tabla como {@link BitsetChart#rellenar}, pero recorriendo
+     * las reglas una a una para anotar cada combinación que funciona.
+     *
+     * @return Los nodos empaquetados, ordenados por celda y, dentro de cada
+     * celda, por no terminal.
+     */
+    private long[] rellenar() {
+        int n = longitud;
+        long[] celdas = tabla.celdas();
+        for (int j = 0; j < n; j++) {
+            gramatica.celdaTerminal(simbolos[j], celdas, tabla.indice(0, j));
+        }
+        long[] arena = new long[Math.max(16, 4 * n)];
+        int usados = 0;
+        for (int i = 2; i <= n; i++) {
+            for (int j = 0; j <= n - i; j++) {
+                inicioCelda[celda(i - 1, j)] = usados;
+                int destino = tabla.indice(i - 1, j);
+                for (int k = 1; k < i; k++) {
+                    int izq = tabla.indice(k - 1, j);
+                    int der = tabla.indice(i - k - 1, j + k);
+                    for (int wb = 0; wb < gramatica.palabras(); wb++) {
+                        long bs = celdas[izq + wb];
+                        while (bs != 0) {
+                            int b = (wb << 6) + Long.numberOfTrailingZeros(bs);
+                            bs &= bs - 1;
+                            for (int r = gramatica.primeraRegla(b); r < gramatica.primeraRegla(b + 1); r++) {
+                                int c = gramatica.reglaDerecho(r);
+                                if ((celdas[der + (c >>> 6)] & (1L << c)) == 0)
+                                    continue;
+                                int a = gramatica.reglaCabeza(r);
+                                celdas[destino + (a >>> 6)] |= 1L << a;
+                                if (usados == arena.length)
+                                    arena = Arrays.copyOf(arena, arena.length * 2);
+                                arena[usados++] = ((long) a << DESPLAZAMIENTO_CABEZA)
+                                        | ((long) r << BITS_CORTE) | k;
+                            }
+                        }
+                    }
+                }
+                Arrays.sort(arena, inicioCelda[celda(i - 1, j)], usados);
+            }
+        }
+        inicioCelda[inicioCelda.length - 1] = usados;
+        return Arrays.copyOf(arena, usados);
+    }
+
+    /**
+     * @return La posición del primer nodo empaquetado de la celda c cuya
+     * cabeza es a o un no terminal posterior.
+     */
+    private int primero(int c, int a) {
+        int desde = inicioCelda[c];
+        int hasta = inicioCelda[c + 1];
+        while (desde < hasta) {
+            int mitad = (desde + hasta) >>> 1;
+            if (cabeza(nodos[mitad]) < a)
+                desde = mitad + 1;
+            else
+                hasta = mitad;
+        }
+        return desde;
+    }
+
+    /**
+     * @return TRUE si la palabra pertenece al lenguaje, es decir, si el bosque
+     * tiene al menos un árbol.
+     */
+    public boolean isDerived() {
+        return tabla != null && tabla.contiene(longitud - 1, 0, gramatica.axioma());
+    }
+
+    /**
+     * @return La longitud de la palabra analizada.
+     */
+    public int longitud() {
+        return longitud;
+    }
+
+    /**
+     * @return El número de nodos empaquetados guardados, que es la memoria
+     * que ocupa el bosque además de la tabla.
+     */
+    public int numNodosEmpaquetados() {
+        return nodos.length;
+    }
+
+    /**
+     * Cuenta los árboles de derivación sin construirlos, sumando de abajo
+     * arriba, para cada celda y no terminal, el producto de las cuentas de los
+     * dos hijos de cada nodo empaquetado.
+     *
+     * @return El número de árboles de derivación de la palabra.
+     */
+    public BigInteger countTrees() {
+        if (!isDerived())
+            return BigInteger.ZERO;
+        if (longitud == 1)
+            return BigInteger.ONE;
+        // cuentas[p] es la cuenta del grupo de nodos que empieza en p.
+        BigInteger[] cuentas = new BigInteger[nodos.length];
+        for (int i = 2; i <= longitud; i++) {
+            for (int j = 0; j <= longitud - i; j++) {
+                int c = celda(i - 1, j);
+                int grupo = inicioCelda[c];
+                BigInteger suma = BigInteger.ZERO;
+                for (int p = inicioCelda[c]; p < inicioCelda[c + 1]; p++) {
+                    if (cabeza(nodos[p]) != cabeza(nodos[grupo])) {
+                        cuentas[grupo] = suma;
+                        grupo = p;
+                        suma = BigInteger.ZERO;
+                    }
+                    int r = regla(nodos[p]);
+                    int k = corte(nodos[p]);
+                    suma = suma.add(cuenta(cuentas, k - 1, j, gramatica.reglaIzquierdo(r))
+                            .multiply(cuenta(cuentas, i - k - 1, j + k, gramatica.reglaDerecho(r))));
+                }
+                if (grupo < inicioCelda[c + 1])
+                    cuentas[grupo] = suma;
+            }
+        }
+        return cuentas[primero(celda(longitud - 1, 0), gramatica.axioma())];
+    }
+
+    private BigInteger cuenta(BigInteger[] cuentas, int fila, int columna, int a) {
+        return fila == 0 ? BigInteger.ONE : cuentas[primero(celda(fila, columna), a)];
+    }
+
+    private static int cabeza(long nodo) {
+        return (int) (nodo >>> DESPLAZAMIENTO_CABEZA);
+    }
+
+    private static int regla(long nodo) {
+        return (int) ((nodo >>> BITS_CORTE) & MASCARA_REGLA);
+    }
+
+    private static int corte(long nodo) {
+        return (int) (nodo & MASCARA_CORTE);
+    }
+
+    /**
+     * Devuelve un iterador sobre los árboles de derivación de la palabra, que
+     * construye cada árbol cuando se le pide. El iterador no es seguro para
+     * su uso desde varios hilos, pero cada hilo puede pedir el suyo.
+     *
+     * @return Los árboles, vacío si la palabra no pertenece al lenguaje.
+     */
+    public Iterator<ParseTree> trees() {
+        return new Arboles();
+    }
+
+    /**
+     * Iterador en forma de cuentakilómetros sobre las elecciones de cada nodo
+     * interno, en preorden.
+     */
+    private final class Arboles implements Iterator<ParseTree> {
+
+        private int[] eleccion = new int[16];
+        private int[] alternativas = new int[16];
+        private int puntos;
+        private int cursor;
+        private ParseTree siguiente;
+
+        Arboles() {
+            if (isDerived())
+                siguiente = generar();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return siguiente != null;
+        }
+
+        @Override
+        public ParseTree next() {
+            if (siguiente == null)
+                throw new NoSuchElementException();
+            ParseTree actual = siguiente;
+            siguiente = avanzar() ? generar() : null;
+            return actual;
+        }
+
+        /**
+         * Pasa a la siguiente combinación de elecciones: descarta las
+         * últimas que ya han probado todas sus alternativas e incrementa la
+         * anterior a ellas.
+         *
+         * @return FALSE si no quedan combinaciones.
+         */
+        private boolean avanzar() {
+            while (puntos > 0 && eleccion[puntos - 1] == alternativas[puntos - 1] - 1) {
+                puntos--;
+            }
+            if (puntos == 0)
+                return false;
+            eleccion[puntos - 1]++;
+            return true;
+        }
+
+        /**
+         * Construye el árbol que corresponde a las elecciones guardadas,
+         * eligiendo la primera alternativa en los nodos posteriores.
+         */
+        private ParseTree generar() {
+            cursor = 0;
+            ParseTree arbol = construir(longitud - 1, 0, gramatica.axioma());
+            puntos = cursor;
+            return arbol;
+        }
+
+        private ParseTree construir(int fila, int columna, int a) {
+            if (fila == 0)
+                return new ParseTree(gramatica.noTerminal(a), columna, gramatica.terminal(simbolos[columna]));
+            int c = celda(fila, columna);
+            int desde = primero(c, a);
+            if (cursor == eleccion.length) {
+                eleccion = Arrays.copyOf(eleccion, cursor * 2);
+                alternativas = Arrays.copyOf(alternativas, cursor * 2);
+            }
+            if (cursor >= puntos) {
+                eleccion[cursor] = 0;
+                alternativas[cursor] = primero(c, a + 1) - desde;
+            }
+            long nodo = nodos[desde + eleccion[cursor++]];
+            int r = regla(nodo);
+            int k = corte(nodo);
+            ParseTree izquierdo = construir(k - 1, columna, gramatica.reglaIzquierdo(r));
+            ParseTree derecho = construir(fila - k, columna + k, gramatica.reglaDerecho(r));
+            return new ParseTree(gramatica.noTerminal(a), izquierdo, derecho);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest;
+
+/**
+ * Nodo de un árbol de derivación. Los nodos internos corresponden a una regla
+ * A::=BC y tienen dos hijos; las hojas corresponden a una regla A::=a.
+ *
+ * Los árboles son inmutables.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ParseTree {
+
+    private final char simbolo;
+    private final int inicio;
+    private final int longitud;
+    private final char terminal;
+    private final ParseTree izquierdo;
+    private final ParseTree derecho;
+
+    /**
+     * Crea una hoja A::=a.
+     *
+     * @param simbolo El no terminal A.
+     * @param inicio Posición del terminal en la palabra.
+     * @param terminal El terminal a.
+     */
+    public ParseTree(char simbolo, int inicio, char terminal) {
+        this.simbolo = simbolo;
+        this.inicio = inicio;
+        this.longitud = 1;
+        this.terminal = terminal;
+        this.izquierdo = null;
+        this.derecho = null;
+    }
+
+    /**
+     * Crea un nodo interno A::=BC. El hijo derecho debe empezar donde acaba
+     * el izquierdo.
+     *
+     * @param simbolo El no terminal A.
+     * @param izquierdo El subárbol de B.
+     * @param derecho El subárbol de C.
+     */
+    public ParseTree(char simbolo, ParseTree izquierdo, ParseTree derecho) {
+        this.simbolo = simbolo;
+        this.inicio = izquierdo.inicio;
+        this.longitud = izquierdo.longitud + derecho.longitud;
+        this.terminal = 0;
+        this.izquierdo = izquierdo;
+        this.derecho = derecho;
+    }
+
+    /**
+     * @return El no terminal del nodo.
+     */
+    public char simbolo() {
+        return simbolo;
+    }
+
+    /**
+     * @return La posición de la palabra en la que empieza la subcadena que
+     * deriva el nodo.
+     */
+    public int inicio() {
+        return inicio;
+    }
+
+    /**
+     * @return La longitud de la subcadena que deriva el nodo.
+     */
+    public int longitud() {
+        return longitud;
+    }
+
+    /**
+     * @return TRUE si el nodo es una hoja, es decir, si se ha aplicado una
+     * regla A::=a.
+     */
+    public boolean esHoja() {
+        return izquierdo == null;
+    }
+
+    /**
+     * @return El terminal derivado si el nodo es una hoja.
+     */
+    public char terminal() {
+        return terminal;
+    }
+
+    /**
+     * @return El hijo B de la regla A::=BC, o null si el nodo es una hoja.
+     */
+    public ParseTree izquierdo() {
+        return izquierdo;
+    }
+
+    /**
+     * @return El hijo C de la regla A::=BC, o null si el nodo es una hoja.
+     */
+    public ParseTree derecho() {
+        return derecho;
+    }
+
+    /**
+     * @return El árbol entre paréntesis, por ejemplo "(S (A a) (B b))".
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        escribir(sb);
+        return sb.toString();
+    }
+
+    private void escribir(StringBuilder sb) {
+        sb.append('(').append(simbolo).append(' ');
+        if (esHoja()) {
+            sb.append(terminal);
+        } else {
+            izquierdo.escribir(sb);
+            sb.append(' ');
+            derecho.escribir(sb);
+        }
+        sb.append(')');
+    }
+}
@@ -0,0 +1,259 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transforma una gramática libre de contexto cualquiera en las máscaras que
+ * usa {@link CompiledGrammar}, siguiendo la forma normal binaria (2NF) de
+ * Lange y Leiß en lugar de pasar a FNC.
+ *
+ * Sólo se binarizan las partes derechas de más de dos símbolos, con un no
+ * terminal auxiliar por cada sufijo distinto, y los terminales que aparecen
+ * en ellas se sustituyen por un no terminal auxiliar por terminal. Las reglas
+ * unitarias A::=B y las reglas vacías A::=ε se mantienen: de ellas se calcula
+ * la relación unitaria, en la que A deriva B si existe A::=B, A::=BC con C
+ * anulable o A::=CB con C anulable. La tabla CYK de la gramática 2NF es la
+ * habitual cerrando cada celda por esa relación; como el cierre de una unión
+ * es la unión de los cierres, se aplica de antemano a las máscaras de cada
+ * regla y el algoritmo no cambia. La gramática crece de forma lineal, no
+ * cuadrática como al eliminar las reglas unitarias y vacías.
+ *
+ * Los no terminales auxiliares se representan con caracteres del área de uso
+ * privado de Unicode, que nunca son letras mayúsculas.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class BinaryNormalForm {
+
+    static final char PRIMER_AUXILIAR = '\uE000';
+    static final char ULTIMO_AUXILIAR = '\uF8FF';
+
+    final char[] noTerminales;
+    final char[] terminales;
+    final int palabras;
+    final long[] cabezasTerminales;
+    final BinaryPairs pares;
+    final boolean[] anulable;
+
+    private final List<char[]> binarias = new ArrayList<>();
+    private final List<char[]> unitarias = new ArrayList<>();
+    private final List<char[]> reglasTerminales = new ArrayList<>();
+    private final List<Character> vacias = new ArrayList<>();
+    private final List<Character> auxiliares = new ArrayList<>();
+    private final Map<String, Character> sufijos = new HashMap<>();
+    private final Map<Character, Character> porTerminal = new HashMap<>();
+    private final Set<Character> conjuntoTerminales;
+
+    /**
+     * @param terminales Conjunto de elementos terminales.
+     * @param noTerminales Conjunto de elementos no terminales.
+     * @param producciones Producciones de cada no terminal, con cualquier
+     * número de terminales y no terminales, incluida la cadena vacía.
+     * @throws IllegalStateException Si hacen falta más no terminales
+     * auxiliares de los que caben en el área de uso privado.
+     */
+    BinaryNormalForm(Set<Character> terminales, Set<Character> noTerminales,
+            Map<Character, ? extends Set<String>> producciones) {
+        this.conjuntoTerminales = terminales;
+        for (Map.Entry<Character, ? extends Set<String>> entry : producciones.entrySet()) {
+            for (String produccion : entry.getValue()) {
+                registrar(entry.getKey(), produccion);
+            }
+        }
+
+        char[] nt = new char[noTerminales.size() + auxiliares.size()];
+        int i = 0;
+        for (Character c : noTerminales) {
+            nt[i++] = c;
+        }
+        for (Character c : auxiliares) {
+            nt[i++] = c;
+        }
+        Arrays.sort(nt);
+        char[] t = new char[terminales.size()];
+        i = 0;
+        for (Character c : terminales) {
+            t[i++] = c;
+        }
+        Arrays.sort(t);
+        this.noTerminales = nt;
+        this.terminales = t;
+        int n = nt.length;
+        int w = (n + 63) >>> 6;
+        this.palabras = w;
+
+        // Símbolos anulables: punto fijo sobre las reglas de la gramática 2NF.
+        this.anulable = new boolean[n];
+        for (char a : vacias) {
+            anulable[id(a)] = true;
+        }
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (char[] r : unitarias) {
+                if (!anulable[id(r[0])] && anulable[id(r[1])]) {
+                    anulable[id(r[0])] = true;
+                    cambio = true;
+                }
+            }
+            for (char[] r : binarias) {
+                if (!anulable[id(r[0])] && anulable[id(r[1])] && anulable[id(r[2])]) {
+                    anulable[id(r[0])] = true;
+                    cambio = true;
+                }
+            }
+        }
+
+        // alcanza[A] contiene los B con A =>* B por la relación unitaria,
+        // incluido el propio A; se cierra al estilo de Warshall.
+        long[] alcanza = new long[n * w];
+        for (int a = 0; a < n; a++) {
+            marcar(alcanza, a * w, a);
+        }
+        for (char[] r : unitarias) {
+            marcar(alcanza, id(r[0]) * w, id(r[1]));
+        }
+        for (char[] r : binarias) {
+            int a = id(r[0]);
+            int b = id(r[1]);
+            int c = id(r[2]);
+            if (anulable[c])
+                marcar(alcanza, a * w, b);
+            if (anulable[b])
+                marcar(alcanza, a * w, c);
+        }
+        for (int k = 0; k < n; k++) {
+            for (int a = 0; a < n; a++) {
+                if ((alcanza[a * w + (k >>> 6)] & (1L << k)) != 0) {
+                    for (int x = 0; x < w; x++) {
+                        alcanza[a * w + x] |= alcanza[k * w + x];
+                    }
+                }
+            }
+        }
+        // cierre[B] contiene los A con A =>* B: los que hay que añadir a una
+        // celda que contiene B.
+        long[] cierre = new long[n * w];
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if ((alcanza[a * w + (b >>> 6)] & (1L << b)) != 0)
+                    marcar(cierre, b * w, a);
+            }
+        }
+
+        this.cabezasTerminales = new long[t.length * w];
+        for (char[] r : reglasTerminales) {
+            unir(cabezasTerminales, Arrays.binarySearch(t, r[1]) * w, cierre, id(r[0]) * w, w);
+        }
+        BinaryPairs.Acumulador acumulador = new BinaryPairs.Acumulador(n, w);
+        for (char[] r : binarias) {
+            acumulador.unir(id(r[1]), id(r[2]), cierre, id(r[0]) * w);
+        }
+        this.pares = acumulador.construir();
+    }
+
+    /**
+     * @return TRUE si todas las producciones están ya en FNC, de modo que no
+     * hace falta transformar la gramática.
+     */
+    static boolean esFNC(Set<Character> terminales, Set<Character> noTerminales,
+            Map<Character, ? extends Set<String>> producciones) {
+        for (Set<String> deA : producciones.values()) {
+            for (String produccion : deA) {
+                boolean binaria = produccion.length() == 2 && noTerminales.contains(produccion.charAt(0))
+                        && noTerminales.contains(produccion.charAt(1));
+                boolean terminal = produccion.length() == 1 && terminales.contains(produccion.charAt(0));
+                if (!binaria && !terminal)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return TRUE si el carácter es un no terminal auxiliar.
+     */
+    static boolean esAuxiliar(char c) {
+        return c >= PRIMER_AUXILIAR && c <= ULTIMO_AUXILIAR;
+    }
+
+    private void registrar(char a, String produccion) {
+        int k = produccion.length();
+        if (k == 0) {
+            vacias.add(a);
+        } else if (k == 1) {
+            char x = produccion.charAt(0);
+            if (conjuntoTerminales.contains(x))
+                reglasTerminales.add(new char[]{a, x});
+            else
+                unitarias.add(new char[]{a, x});
+        } else {
+            char[] simbolos = new char[k];
+            for (int i = 0; i < k; i++) {
+                simbolos[i] = noTerminalDe(produccion.charAt(i));
+            }
+            binarias.add(new char[]{a, simbolos[0], sufijo(simbolos, 1)});
+        }
+    }
+
+    /**
+     * @return El no terminal que deriva exactamente simbolos[desde..], que es
+     * el propio símbolo si sólo queda uno. Los sufijos iguales comparten no
+     * terminal auxiliar.
+     */
+    private char sufijo(char[] simbolos, int desde) {
+        if (desde == simbolos.length - 1)
+            return simbolos[desde];
+        String clave = new String(simbolos, desde, simbolos.length - desde);
+        Character aux = sufijos.get(clave);
+        if (aux == null) {
+            aux = nuevoAuxiliar();
+            sufijos.put(clave, aux);
+            binarias.add(new char[]{aux, simbolos[desde], sufijo(simbolos, desde + 1)});
+        }
+        return aux;
+    }
+
+    /**
+     * @return El propio símbolo si es no terminal, o el auxiliar que deriva
+     * sólo el terminal.
+     */
+    private char noTerminalDe(char x) {
+        if (!conjuntoTerminales.contains(x))
+            return x;
+        Character aux = porTerminal.get(x);
+        if (aux == null) {
+            aux = nuevoAuxiliar();
+            porTerminal.put(x, aux);
+            reglasTerminales.add(new char[]{aux, x});
+        }
+        return aux;
+    }
+
+    private char nuevoAuxiliar() {
+        if (auxiliares.size() > ULTIMO_AUXILIAR - PRIMER_AUXILIAR)
+            throw new IllegalStateException("Demasiados no terminales auxiliares");
+        char aux = (char) (PRIMER_AUXILIAR + auxiliares.size());
+        auxiliares.add(aux);
+        return aux;
+    }
+
+    private int id(char c) {
+        return Arrays.binarySearch(noTerminales, c);
+    }
+
+    private static void marcar(long[] conjuntos, int off, int id) {
+        conjuntos[off + (id >>> 6)] |= 1L << id;
+    }
+
+    private static void unir(long[] destino, int offDestino, long[] origen, int offOrigen, int w) {
+        for (int x = 0; x < w; x++) {
+            destino[offDestino + x] |= origen[offOrigen + x];
+        }
+    }
+}
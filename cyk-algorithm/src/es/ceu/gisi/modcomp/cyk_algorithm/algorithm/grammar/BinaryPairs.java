@@ -0,0 +1,105 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reglas binarias A::=BC agrupadas por pares (B, C): una máscara de cabezas
+ * por cada par que aparece en alguna regla, en lugar de una por cada uno de
+ * los n * n pares posibles. Los pares están ordenados por B y, dentro de cada
+ * B, por C, de modo que los de B = b son los de primerPar[b] a
+ * primerPar[b + 1] - 1.
+ *
+ * Así la memoria crece con el número de reglas y no con el cuadrado del
+ * número de no terminales, que con los auxiliares de {@link BinaryNormalForm}
+ * puede llegar a varios miles.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class BinaryPairs {
+
+    final int[] primerPar;
+    final int[] parDerecho;
+    final long[] cabezas;
+
+    /**
+     * @param primerPar Primer par de cada hijo izquierdo, con n + 1
+     * posiciones.
+     * @param parDerecho Hijo derecho de cada par.
+     * @param cabezas Máscara de las cabezas de cada par, de palabras()
+     * palabras.
+     */
+    BinaryPairs(int[] primerPar, int[] parDerecho, long[] cabezas) {
+        this.primerPar = primerPar;
+        this.parDerecho = parDerecho;
+        this.cabezas = cabezas;
+    }
+
+    /**
+     * @return El número de pares (B, C) con alguna regla.
+     */
+    int numPares() {
+        return parDerecho.length;
+    }
+
+    /**
+     * Acumula las reglas en cualquier orden y construye los pares ordenados.
+     */
+    static final class Acumulador {
+
+        private final int n;
+        private final int palabras;
+        private final HashMap<Long, long[]> pares = new HashMap<>();
+
+        Acumulador(int n, int palabras) {
+            this.n = n;
+            this.palabras = palabras;
+        }
+
+        /**
+         * Añade la regla a::=bc.
+         */
+        void marcar(int b, int c, int a) {
+            mascara(b, c)[a >>> 6] |= 1L << a;
+        }
+
+        /**
+         * Añade las reglas A::=bc de todos los A de la máscara de origen.
+         */
+        void unir(int b, int c, long[] origen, int offOrigen) {
+            long[] destino = mascara(b, c);
+            for (int x = 0; x < palabras; x++) {
+                destino[x] |= origen[offOrigen + x];
+            }
+        }
+
+        private long[] mascara(int b, int c) {
+            return pares.computeIfAbsent((long) b * n + c, k -> new long[palabras]);
+        }
+
+        BinaryPairs construir() {
+            long[] claves = new long[pares.size()];
+            int i = 0;
+            for (Long clave : pares.keySet()) {
+                claves[i++] = clave;
+            }
+            Arrays.sort(claves);
+            int[] primerPar = new int[n + 1];
+            int[] parDerecho = new int[claves.length];
+            long[] cabezas = new long[Math.multiplyExact(claves.length, palabras)];
+            int b = 0;
+            for (int g = 0; g < claves.length; g++) {
+                int izquierdo = (int) (claves[g] / n);
+                while (b <= izquierdo) {
+                    primerPar[b++] = g;
+                }
+                parDerecho[g] = (int) (claves[g] % n);
+                System.arraycopy(pares.get(claves[g]), 0, cabezas, g * palabras, palabras);
+            }
+            while (b <= n) {
+                primerPar[b++] = claves.length;
+            }
+            return new BinaryPairs(primerPar, parDerecho, cabezas);
+        }
+    }
+}
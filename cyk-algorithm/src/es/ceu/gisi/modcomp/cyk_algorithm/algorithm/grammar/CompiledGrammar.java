@@ -0,0 +1,1003 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartFormat;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartRenderer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernel;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernels;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ParserEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Recognizer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest.ParseForest;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.GrammarCompilationEvent;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseEvent;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseListener;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gramática en FNC compilada a tablas de identificadores enteros, lista para
+ * ser usada por el algoritmo CYK.
+ *
+ * Cada no terminal recibe un identificador (su posición en orden alfabético) y
+ * los conjuntos de no terminales se representan como máscaras de bits de
+ * {@link #palabras()} palabras de 64 bits. La compilación construye:
+ * <ul>
+ * <li>un índice inverso de las reglas binarias: para cada par (B, C) con
+ * alguna regla, la máscara de los no terminales A con A::=BC. Sólo se guardan
+ * esos pares, y la posición del par (B, C) se obtiene contando los C' &lt; C
+ * del conjunto de hijos derechos de B, así que combinar dos celdas cuesta una
+ * lectura del array por cada par de símbolos y la memoria crece con el número
+ * de reglas, no con el cuadrado del número de no terminales;</li>
+ * <li>una tabla terminal -> máscara de los no terminales A con A::=a, con la
+ * que se rellena la primera fila de la tabla;</li>
+ * <li>un filtro previo ({@link Prefilter}) que descarta en tiempo lineal
+ * muchas palabras que no pueden pertenecer al lenguaje, sin llegar a
+ * construir la tabla.</li>
+ * </ul>
+ *
+ * Los objetos de esta clase son inmutables, por lo que una misma instancia
+ * puede usarse para analizar palabras desde varios hilos a la vez sin ningún
+ * tipo de sincronización. Sólo cambian sus contadores y el reconocedor del
+ * último motor usado en {@link #isDerived(String, ParserEngine)}, que se
+ * conserva para no prepararlo en cada llamada.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class CompiledGrammar {
+
+    /**
+     * Operaciones con las que se acumulan las filas de la tabla de reglas en
+     * las gramáticas de más de 64 no terminales.
+     */
+    private static final SplitKernel KERNEL = SplitKernels.predeterminado();
+
+    private final char[] noTerminales;
+    private final char[] terminales;
+    private final int[] idTerminal;
+    private final int axioma;
+    private final int palabras;
+    private final long[] cabezasTerminales;
+    private final BinaryPairs pares;
+    private final long[] cabezasPares;
+    private final long[] derechos;
+    private final int[] rangoDerechos;
+    private final int[] reglaCabeza;
+    private final int[] reglaIzquierdo;
+    private final int[] reglaDerecho;
+    private final int[] primeraRegla;
+    private final double[] logReglas;
+    private final int[] primeraReglaTerminal;
+    private final int[] reglaTerminalCabeza;
+    private final double[] logReglasTerminales;
+    private final boolean fnc;
+    private final boolean derivaVacia;
+    private final long[] visibles;
+    private final Prefilter prefiltro;
+    private final LongAdder filtradas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    /**
+     * Último motor usado en {@link #isDerived(String, ParserEngine)} con su
+     * reconocedor para esta gramática, o null.
+     */
+    private volatile Preparado preparado;
+
+    CompiledGrammar(char[] noTerminales, char[] terminales, int axioma,
+            long[] cabezasTerminales, BinaryPairs pares) {
+        this(noTerminales, terminales, axioma, cabezasTerminales, pares, Collections.emptyMap());
+    }
+
+    /**
+     * @param probabilidades Probabilidad de cada producción, indexada por
+     * cabeza y parte derecha; las que no aparecen tienen probabilidad 1.
+     */
+    CompiledGrammar(char[] noTerminales, char[] terminales, int axioma,
+            long[] cabezasTerminales, BinaryPairs pares,
+            Map<Character, ? extends Map<String, Double>> probabilidades) {
+        this(noTerminales, terminales, axioma, cabezasTerminales, pares, probabilidades, true, false);
+    }
+
+    /**
+     * @param fnc FALSE si la gramática original no estaba en FNC y las máscaras
+     * vienen de {@link BinaryNormalForm}.
+     * @param derivaVacia TRUE si el axioma deriva la palabra vacía.
+     */
+    CompiledGrammar(char[] noTerminales, char[] terminales, int axioma,
+            long[] cabezasTerminales, BinaryPairs pares,
+            Map<Character, ? extends Map<String, Double>> probabilidades, boolean fnc, boolean derivaVacia) {
+        this(noTerminales, terminales, axioma, cabezasTerminales, pares, probabilidades, fnc,
+                derivaVacia, null, null);
+    }
+
+    /**
+     * @param logBinarias Logaritmos de las probabilidades de las reglas
+     * binarias en el orden de {@link #reglaCabeza(int)}, o null para
+     * calcularlos a partir de probabilidades.
+     * @param logTerminales Logaritmos de las probabilidades de las reglas
+     * terminales, o null para calcularlos a partir de probabilidades.
+     */
+    CompiledGrammar(char[] noTerminales, char[] terminales, int axioma,
+            long[] cabezasTerminales, BinaryPairs pares,
+            Map<Character, ? extends Map<String, Double>> probabilidades, boolean fnc, boolean derivaVacia,
+            double[] logBinarias, double[] logTerminales) {
+        this.fnc = fnc;
+        this.derivaVacia = derivaVacia;
+        this.noTerminales = noTerminales;
+        this.terminales = terminales;
+        this.axioma = axioma;
+        this.palabras = (noTerminales.length + 63) >>> 6;
+        this.cabezasTerminales = cabezasTerminales;
+        this.pares = pares;
+        this.cabezasPares = pares.cabezas;
+
+        int maximo = -1;
+        for (char t : terminales) {
+            maximo = Math.max(maximo, t);
+        }
+        this.visibles = new long[palabras];
+        for (int i = 0; i < noTerminales.length; i++) {
+            if (!BinaryNormalForm.esAuxiliar(noTerminales[i]))
+                visibles[i >>> 6] |= 1L << i;
+        }
+        this.idTerminal = new int[maximo + 1];
+        Arrays.fill(idTerminal, -1);
+        for (int i = 0; i < terminales.length; i++) {
+            idTerminal[terminales[i]] = i;
+        }
+
+        // derechos[B] contiene los C para los que existe alguna regla A::=BC,
+        // lo que permite descartar pares sin reglas con un AND, y
+        // rangoDerechos[B][w] la posición del primer par de B cuyo C cae en la
+        // palabra w. Además se extrae la lista de reglas binarias, ordenada
+        // por (B, C).
+        int n = noTerminales.length;
+        this.derechos = new long[Math.multiplyExact(n, palabras)];
+        this.rangoDerechos = new int[n * palabras];
+        int numReglas = 0;
+        for (long mascara : cabezasPares) {
+            numReglas += Long.bitCount(mascara);
+        }
+        this.reglaCabeza = new int[numReglas];
+        this.reglaIzquierdo = new int[numReglas];
+        this.reglaDerecho = new int[numReglas];
+        this.primeraRegla = new int[n + 1];
+        int r = 0;
+        for (int b = 0; b < n; b++) {
+            primeraRegla[b] = r;
+            for (int g = pares.primerPar[b]; g < pares.primerPar[b + 1]; g++) {
+                int c = pares.parDerecho[g];
+                derechos[b * palabras + (c >>> 6)] |= 1L << c;
+                for (int w = 0; w < palabras; w++) {
+                    long cabezas = cabezasPares[g * palabras + w];
+                    while (cabezas != 0) {
+                        reglaCabeza[r] = (w << 6) + Long.numberOfTrailingZeros(cabezas);
+                        reglaIzquierdo[r] = b;
+                        reglaDerecho[r] = c;
+                        cabezas &= cabezas - 1;
+                        r++;
+                    }
+                }
+            }
+            int rango = pares.primerPar[b];
+            for (int w = 0; w < palabras; w++) {
+                rangoDerechos[b * palabras + w] = rango;
+                rango += Long.bitCount(derechos[b * palabras + w]);
+            }
+        }
+        primeraRegla[n] = r;
+
+        // Índice de las reglas A::=a por terminal y logaritmos de las
+        // probabilidades, para que el análisis ponderado no consulte mapas.
+        this.logReglas = logBinarias != null ? logBinarias : new double[numReglas];
+        for (r = 0; r < numReglas && logBinarias == null; r++) {
+            logReglas[r] = logProbabilidad(probabilidades, reglaCabeza[r],
+                    new String(new char[]{noTerminales[reglaIzquierdo[r]], noTerminales[reglaDerecho[r]]}));
+        }
+        int numReglasTerminales = 0;
+        for (long mascara : cabezasTerminales) {
+            numReglasTerminales += Long.bitCount(mascara);
+        }
+        this.primeraReglaTerminal = new int[terminales.length + 1];
+        this.reglaTerminalCabeza = new int[numReglasTerminales];
+        this.logReglasTerminales = logTerminales != null ? logTerminales : new double[numReglasTerminales];
+        r = 0;
+        for (int t = 0; t < terminales.length; t++) {
+            primeraReglaTerminal[t] = r;
+            for (int w = 0; w < palabras; w++) {
+                long cabezas = cabezasTerminales[t * palabras + w];
+                while (cabezas != 0) {
+                    int a = (w << 6) + Long.numberOfTrailingZeros(cabezas);
+                    cabezas &= cabezas - 1;
+                    reglaTerminalCabeza[r] = a;
+                    if (logTerminales == null)
+                        logReglasTerminales[r] = logProbabilidad(probabilidades, a, String.valueOf(terminales[t]));
+                    r++;
+                }
+            }
+        }
+        primeraReglaTerminal[terminales.length] = r;
+        this.prefiltro = new Prefilter(this);
+    }
+
+    private double logProbabilidad(Map<Character, ? extends Map<String, Double>> probabilidades,
+            int a, String produccion) {
+        Map<String, Double> deA = probabilidades.get(noTerminales[a]);
+        Double p = deA == null ? null : deA.get(produccion);
+        return p == null ? 0.0 : Math.log(p);
+    }
+
+    /**
+     * Compila una gramática.
+     *
+     * @param terminales Conjunto de elementos terminales.
+     * @param noTerminales Conjunto de elementos no terminales.
+     * @param producciones Producciones de cada no terminal: en FNC, de tipo
+     * "BC" o "a", o cadenas cualquiera de terminales y no terminales,
+     * incluida la vacía.
+     * @param axioma Axioma de la gramática, o ' ' si no se ha establecido.
+     * @return La gramática compilada.
+     */
+    public static CompiledGrammar compile(Set<Character> terminales, Set<Character> noTerminales,
+            Map<Character, ? extends Set<String>> producciones, char axioma) {
+        return compile(terminales, noTerminales, producciones, axioma, Collections.emptyMap());
+    }
+
+    /**
+     * Compila una gramática con probabilidades en las producciones.
+     *
+     * Si alguna producción no está en FNC (partes derechas de cualquier
+     * longitud, reglas unitarias o vacías), la gramática se transforma con
+     * {@link BinaryNormalForm}, añadiendo no terminales auxiliares que no se
+     * muestran en la tabla; las probabilidades sólo se usan con gramáticas en
+     * FNC.
+     *
+     * @param probabilidades Probabilidad de cada producción, indexada por
+     * cabeza y parte derecha; las que no aparecen tienen probabilidad 1.
+     * @see #compile(Set, Set, Map, char)
+     */
+    public static CompiledGrammar compile(Set<Character> terminales, Set<Character> noTerminales,
+            Map<Character, ? extends Set<String>> producciones, char axioma,
+            Map<Character, ? extends Map<String, Double>> probabilidades) {
+        GrammarCompilationEvent evento = new GrammarCompilationEvent();
+        evento.begin();
+        CompiledGrammar gramatica;
+        if (BinaryNormalForm.esFNC(terminales, noTerminales, producciones)) {
+            gramatica = compilarFNC(terminales, noTerminales, producciones, axioma, probabilidades);
+        } else {
+            BinaryNormalForm forma = new BinaryNormalForm(terminales, noTerminales, producciones);
+            int s = Arrays.binarySearch(forma.noTerminales, axioma);
+            gramatica = new CompiledGrammar(forma.noTerminales, forma.terminales, s,
+                    forma.cabezasTerminales, forma.pares, Collections.emptyMap(),
+                    false, s >= 0 && forma.anulable[s]);
+        }
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.noTerminales = gramatica.numNoTerminales();
+            evento.terminales = gramatica.numTerminales();
+            evento.reglasBinarias = gramatica.numReglasBinarias();
+            evento.reglasTerminales = gramatica.primeraReglaTerminal(gramatica.numTerminales());
+            evento.commit();
+        }
+        return gramatica;
+    }
+
+    private static CompiledGrammar compilarFNC(Set<Character> terminales, Set<Character> noTerminales,
+            Map<Character, ? extends Set<String>> producciones, char axioma,
+            Map<Character, ? extends Map<String, Double>> probabilidades) {
+        char[] nt = ordenar(noTerminales);
+        char[] t = ordenar(terminales);
+        int n = nt.length;
+        int palabras = (n + 63) >>> 6;
+        long[] cabezasTerminales = new long[t.length * palabras];
+        BinaryPairs.Acumulador binarias = new BinaryPairs.Acumulador(n, palabras);
+
+        for (Map.Entry<Character, ? extends Set<String>> entry : producciones.entrySet()) {
+            int a = Arrays.binarySearch(nt, entry.getKey());
+            for (String produccion : entry.getValue()) {
+                if (produccion.length() == 2) {
+                    int b = Arrays.binarySearch(nt, produccion.charAt(0));
+                    int c = Arrays.binarySearch(nt, produccion.charAt(1));
+                    binarias.marcar(b, c, a);
+                }
+                else {
+                    int ter = Arrays.binarySearch(t, produccion.charAt(0));
+                    cabezasTerminales[ter * palabras + (a >>> 6)] |= 1L << a;
+                }
+            }
+        }
+        return new CompiledGrammar(nt, t, Arrays.binarySearch(nt, axioma),
+                cabezasTerminales, binarias.construir(), probabilidades);
+    }
+
+    private static char[] ordenar(Set<Character> simbolos) {
+        char[] resultado = new char[simbolos.size()];
+        int i = 0;
+        for (Character c : simbolos) {
+            resultado[i++] = c;
+        }
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Accesos a las tablas para CompiledGrammarFile, sin copiarlas.
+    char[] tablaNoTerminales() {
+        return noTerminales;
+    }
+
+    char[] tablaTerminales() {
+        return terminales;
+    }
+
+    long[] tablaCabezasTerminales() {
+        return cabezasTerminales;
+    }
+
+    BinaryPairs tablaPares() {
+        return pares;
+    }
+
+    double[] tablaLogReglas() {
+        return logReglas;
+    }
+
+    double[] tablaLogReglasTerminales() {
+        return logReglasTerminales;
+    }
+
+    /**
+     * @return TRUE si la gramática se introdujo en FNC; FALSE si se ha
+     * transformado a forma normal binaria y tiene no terminales auxiliares.
+     */
+    public boolean esFNC() {
+        return fnc;
+    }
+
+    /**
+     * @return TRUE si el axioma deriva la palabra vacía, que nunca se analiza
+     * con la tabla.
+     */
+    public boolean derivesEmptyWord() {
+        return derivaVacia;
+    }
+
+    /**
+     * @return TRUE si el no terminal con identificador id es un auxiliar
+     * introducido al transformar la gramática, que no se muestra en la tabla.
+     */
+    public boolean esAuxiliar(int id) {
+        return BinaryNormalForm.esAuxiliar(noTerminales[id]);
+    }
+
+    /**
+     * @return La palabra w de la máscara de los no terminales que no son
+     * auxiliares.
+     */
+    public long visibles(int w) {
+        return visibles[w];
+    }
+
+    /**
+     * @return El número de no terminales de la gramática.
+     */
+    public int numNoTerminales() {
+        return noTerminales.length;
+    }
+
+    /**
+     * @return El número de palabras de 64 bits de cada conjunto de no
+     * terminales.
+     */
+    public int palabras() {
+        return palabras;
+    }
+
+    /**
+     * @return El identificador del axioma, o -1 si no se ha establecido.
+     */
+    public int axioma() {
+        return axioma;
+    }
+
+    /**
+     * @param id Identificador de un no terminal.
+     * @return El símbolo del no terminal.
+     */
+    public char noTerminal(int id) {
+        return noTerminales[id];
+    }
+
+    /**
+     * @return El número de terminales de la gramática.
+     */
+    public int numTerminales() {
+        return terminales.length;
+    }
+
+    /**
+     * @param id Identificador de un terminal.
+     * @return El símbolo del terminal.
+     */
+    public char terminal(int id) {
+        return terminales[id];
+    }
+
+    /**
+     * @return El número de reglas binarias A::=BC de la gramática. Las reglas
+     * se identifican por su posición, de 0 a numReglasBinarias() - 1, y están
+     * ordenadas por (B, C).
+     */
+    public int numReglasBinarias() {
+        return reglaCabeza.length;
+    }
+
+    /**
+     * @return El identificador de A en la regla binaria r, A::=BC.
+     */
+    public int reglaCabeza(int r) {
+        return reglaCabeza[r];
+    }
+
+    /**
+     * @return El identificador de B en la regla binaria r, A::=BC.
+     */
+    public int reglaIzquierdo(int r) {
+        return reglaIzquierdo[r];
+    }
+
+    /**
+     * @return El identificador de C en la regla binaria r, A::=BC.
+     */
+    public int reglaDerecho(int r) {
+        return reglaDerecho[r];
+    }
+
+    /**
+     * @return La primera regla binaria cuyo hijo izquierdo es b. Las reglas
+     * A::=BC con B = b son las de primeraRegla(b) a primeraRegla(b + 1) - 1.
+     */
+    public int primeraRegla(int b) {
+        return primeraRegla[b];
+    }
+
+    /**
+     * @return El logaritmo natural de la probabilidad de la regla binaria r.
+     */
+    public double logProbabilidad(int r) {
+        return logReglas[r];
+    }
+
+    /**
+     * @return La primera regla A::=a del terminal t. Las reglas del terminal t
+     * son las de primeraReglaTerminal(t) a primeraReglaTerminal(t + 1) - 1.
+     */
+    public int primeraReglaTerminal(int t) {
+        return primeraReglaTerminal[t];
+    }
+
+    /**
+     * @return El identificador de A en la regla terminal i, A::=a.
+     */
+    public int reglaTerminalCabeza(int i) {
+        return reglaTerminalCabeza[i];
+    }
+
+    /**
+     * @return El logaritmo natural de la probabilidad de la regla terminal i.
+     */
+    public double logProbabilidadTerminal(int i) {
+        return logReglasTerminales[i];
+    }
+
+    /**
+     * @return TRUE si el no terminal a deriva directamente el terminal t, es
+     * decir, si existe la regla A::=t.
+     */
+    public boolean derivaTerminal(int a, int t) {
+        return (cabezasTerminales[t * palabras + (a >>> 6)] & (1L << a)) != 0;
+    }
+
+    /**
+     * @param c Un carácter de la palabra de entrada.
+     * @return El identificador del terminal, o -1 si no es un terminal de la
+     * gramática.
+     */
+    public int idTerminal(char c) {
+        return c < idTerminal.length ? idTerminal[c] : -1;
+    }
+
+    /**
+     * Traduce una palabra a identificadores de terminales, comprobando que se
+     * puede analizar con esta gramática.
+     *
+     * @param word La palabra a traducir.
+     * @return Los identificadores de los terminales de la palabra.
+     * @throws CYKAlgorithmException Si la palabra es vacía, si la gramática
+     * carece de axioma o si la palabra contiene símbolos que no son terminales
+     * de la gramática.
+     */
+    public int[] codificar(String word) throws CYKAlgorithmException {
+        if (word.length() == 0 || axioma < 0)
+            throw new CYKAlgorithmException();
+        int[] simbolos = new int[word.length()];
+        codificar(word, simbolos);
+        return simbolos;
+    }
+
+    /**
+     * Igual que {@link #codificar(String)}, pero guardando los identificadores
+     * en las primeras posiciones de un array ya reservado.
+     *
+     * @param word La palabra a traducir.
+     * @param destino Array de al menos word.length() posiciones.
+     * @throws CYKAlgorithmException En los mismos casos que codificar.
+     */
+    public void codificar(String word, int[] destino) throws CYKAlgorithmException {
+        if (word.length() == 0 || axioma < 0)
+            throw new CYKAlgorithmException();
+        for (int i = 0; i < word.length(); i++) {
+            destino[i] = idTerminal(word.charAt(i));
+            if (destino[i] < 0)
+                throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * Traduce una palabra dada como identificadores de una
+     * {@link SymbolTable} a identificadores de terminales de esta gramática.
+     *
+     * @param ids Array con la palabra.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra.
+     * @param tabla Tabla de símbolos de la que salen los identificadores.
+     * @param destino Array de al menos longitud posiciones.
+     * @throws CYKAlgorithmException Si la palabra es vacía o no cabe en ids,
+     * si la gramática carece de axioma o si algún identificador no
+     * corresponde a un terminal de la gramática.
+     */
+    public void codificar(int[] ids, int desde, int longitud, SymbolTable tabla, int[] destino)
+            throws CYKAlgorithmException {
+        comprobarFragmento(ids, desde, longitud);
+        if (axioma < 0)
+            throw new CYKAlgorithmException();
+        for (int i = 0; i < longitud; i++) {
+            destino[i] = idSimbolo(tabla, ids[desde + i]);
+        }
+    }
+
+    /**
+     * Igual que {@link #codificar(int[], int, int, SymbolTable, int[])} con
+     * los identificadores entre la posición y el límite del buffer, que no se
+     * modifican.
+     */
+    public void codificar(IntBuffer ids, SymbolTable tabla, int[] destino) throws CYKAlgorithmException {
+        int desde = ids.position();
+        int longitud = ids.remaining();
+        if (longitud == 0 || axioma < 0)
+            throw new CYKAlgorithmException();
+        for (int i = 0; i < longitud; i++) {
+            destino[i] = idSimbolo(tabla, ids.get(desde + i));
+        }
+    }
+
+    /**
+     * @throws CYKAlgorithmException Si ids[desde, desde + longitud) es vacío
+     * o se sale del array.
+     */
+    private static void comprobarFragmento(int[] ids, int desde, int longitud) throws CYKAlgorithmException {
+        if (desde < 0 || longitud <= 0 || desde > ids.length - longitud)
+            throw new CYKAlgorithmException();
+    }
+
+    private int idSimbolo(SymbolTable tabla, int id) throws CYKAlgorithmException {
+        char c = tabla.caracter(id);
+        int t = c == 0 ? -1 : idTerminal(c);
+        if (t < 0)
+            throw new CYKAlgorithmException();
+        return t;
+    }
+
+    /**
+     * Pasa la palabra por el filtro previo de la gramática, que comprueba en
+     * tiempo lineal su longitud, sus extremos y los pares de terminales
+     * consecutivos.
+     *
+     * @param simbolos Identificadores de terminales válidos de la gramática.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra, al menos 1.
+     * @return FALSE si la palabra seguro que no pertenece al lenguaje; TRUE si
+     * hay que construir la tabla para saberlo.
+     */
+    public boolean admitePrefiltro(int[] simbolos, int desde, int longitud) {
+        filtradas.increment();
+        if (prefiltro.admite(simbolos, desde, longitud))
+            return true;
+        rechazadas.increment();
+        return false;
+    }
+
+    /**
+     * @return El número de palabras que han pasado por el filtro previo.
+     */
+    public long palabrasFiltradas() {
+        return filtradas.sum();
+    }
+
+    /**
+     * @return El número de palabras descartadas por el filtro previo sin
+     * construir la tabla.
+     */
+    public long palabrasRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * Añade a la celda destino los no terminales A con A::=a, siendo a el
+     * terminal indicado.
+     */
+    public void celdaTerminal(int terminal, long[] destino, int offDestino) {
+        int base = terminal * palabras;
+        for (int w = 0; w < palabras; w++) {
+            destino[offDestino + w] |= cabezasTerminales[base + w];
+        }
+    }
+
+    /**
+     * Añade a la celda destino los no terminales A con A::=BC, siendo B un no
+     * terminal de la celda izquierda y C uno de la celda derecha. Las tres
+     * celdas pueden estar en el mismo array.
+     *
+     * @return El número de pares (B, C) consultados en el índice.
+     */
+    public int combinar(long[] izq, int offIzq, long[] der, int offDer, long[] destino, int offDestino) {
+        int pares = 0;
+        if (palabras == 1) {
+            long bs = izq[offIzq];
+            long cs = der[offDer];
+            if (cs == 0)
+                return 0;
+            long acumulado = 0;
+            while (bs != 0) {
+                int b = Long.numberOfTrailingZeros(bs);
+                bs &= bs - 1;
+                long derechosB = derechos[b];
+                long candidatos = cs & derechosB;
+                int base = rangoDerechos[b];
+                while (candidatos != 0) {
+                    int c = Long.numberOfTrailingZeros(candidatos);
+                    candidatos &= candidatos - 1;
+                    acumulado |= cabezasPares[base + Long.bitCount(derechosB & ((1L << c) - 1))];
+                    pares++;
+                }
+            }
+            destino[offDestino] |= acumulado;
+            return pares;
+        }
+        for (int wb = 0; wb < palabras; wb++) {
+            long bs = izq[offIzq + wb];
+            while (bs != 0) {
+                int b = (wb << 6) + Long.numberOfTrailingZeros(bs);
+                bs &= bs - 1;
+                for (int wc = 0; wc < palabras; wc++) {
+                    long derechosB = derechos[b * palabras + wc];
+                    long candidatos = der[offDer + wc] & derechosB;
+                    int base = rangoDerechos[b * palabras + wc];
+                    while (candidatos != 0) {
+                        int c = Long.numberOfTrailingZeros(candidatos);
+                        candidatos &= candidatos - 1;
+                        int g = base + Long.bitCount(derechosB & ((1L << c) - 1));
+                        KERNEL.acumular(cabezasPares, g * palabras, destino, offDestino, palabras);
+                        pares++;
+                    }
+                }
+            }
+        }
+        return pares;
+    }
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática. La tabla y la palabra traducida se guardan en el
+     * {@link ChartWorkspace} del hilo, de modo que las llamadas repetidas no
+     * reservan memoria.
+     *
+     * @param word La palabra a verificar.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException Si la palabra es vacía, si contiene
+     * símbolos que no son terminales de la gramática o si la gramática carece
+     * de axioma.
+     */
+    public boolean isDerived(String word) throws CYKAlgorithmException {
+        return isDerived(word, (ParseListener) null);
+    }
+
+    /**
+     * Igual que {@link #isDerived(String)}, informando al oyente de las
+     * métricas del relleno de la tabla. Con un oyente nulo no se mide nada.
+     *
+     * Si hay una grabación de JDK Flight Recorder con el evento
+     * {@link ParseEvent} activado, el análisis se registra además como evento.
+     *
+     * @param word La palabra a verificar.
+     * @param oyente Oyente que recibe las métricas, o null.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public boolean isDerived(String word, ParseListener oyente) throws CYKAlgorithmException {
+        ParseEvent evento = null;
+        if (ParseEvent.activo()) {
+            evento = new ParseEvent();
+            evento.begin();
+        }
+        long inicio = oyente == null ? 0 : System.nanoTime();
+        ChartWorkspace espacio = ChartWorkspace.actual();
+        int n = word.length();
+        int[] simbolos = espacio.simbolos(n);
+        codificar(word, simbolos);
+        return reconocer(espacio, simbolos, n, oyente, inicio, evento);
+    }
+
+    /**
+     * Igual que {@link #isDerived(String)} para la palabra que ocupa las
+     * posiciones [desde, desde + longitud) de ids, formada por
+     * identificadores de la tabla de símbolos. La palabra no se copia: se
+     * traduce directamente al espacio de trabajo del hilo.
+     *
+     * @param ids Array con la palabra, por ejemplo un buffer de tokens.
+     * @param desde Posición en la que empieza la palabra.
+     * @param longitud Longitud de la palabra.
+     * @param tabla Tabla de símbolos de la que salen los identificadores.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException Si la palabra es vacía o no cabe en ids,
+     * si algún identificador no es un terminal de la gramática o si la
+     * gramática carece de axioma.
+     */
+    public boolean isDerived(int[] ids, int desde, int longitud, SymbolTable tabla)
+            throws CYKAlgorithmException {
+        comprobarFragmento(ids, desde, longitud);
+        ParseEvent evento = null;
+        if (ParseEvent.activo()) {
+            evento = new ParseEvent();
+            evento.begin();
+        }
+        ChartWorkspace espacio = ChartWorkspace.actual();
+        int[] simbolos = espacio.simbolos(longitud);
+        codificar(ids, desde, longitud, tabla, simbolos);
+        return reconocer(espacio, simbolos, longitud, null, 0, evento);
+    }
+
+    /**
+     * Igual que {@link #isDerived(int[], int, int, SymbolTable)} con los
+     * identificadores entre la posición y el límite del buffer. No se
+     * modifica la posición del buffer.
+     */
+    public boolean isDerived(IntBuffer ids, SymbolTable tabla) throws CYKAlgorithmException {
+        ParseEvent evento = null;
+        if (ParseEvent.activo()) {
+            evento = new ParseEvent();
+            evento.begin();
+        }
+        ChartWorkspace espacio = ChartWorkspace.actual();
+        int[] simbolos = espacio.simbolos(ids.remaining());
+        codificar(ids, tabla, simbolos);
+        return reconocer(espacio, simbolos, ids.remaining(), null, 0, evento);
+    }
+
+    /**
+     * Rellena la tabla del espacio de trabajo para una palabra ya traducida.
+     *
+     * @param oyente Oyente que recibe las métricas, o null.
+     * @param inicio Instante en que empezó el análisis, si hay oyente.
+     * @param evento Evento de JFR del análisis, o null si no está activado.
+     */
+    private boolean reconocer(ChartWorkspace espacio, int[] simbolos, int n, ParseListener oyente,
+            long inicio, ParseEvent evento) {
+        BitsetChart tabla = null;
+        boolean derivada = false;
+        if (admitePrefiltro(simbolos, 0, n)) {
+            tabla = espacio.tabla(n, palabras);
+            if (oyente == null)
+                tabla.rellenar(this, simbolos, 0);
+            else
+                tabla.rellenar(this, simbolos, 0, oyente);
+            derivada = tabla.contiene(n - 1, 0, axioma);
+        }
+        if (oyente != null)
+            oyente.alTerminar(n, derivada, System.nanoTime() - inicio);
+        if (evento != null)
+            registrar(evento, "cyk", n, tabla, derivada);
+        return derivada;
+    }
+
+    /**
+     * Completa y envía el evento de un análisis si la grabación lo admite.
+     *
+     * @param tabla La tabla rellenada, o null si el filtro previo descartó
+     * la palabra.
+     */
+    private static void registrar(ParseEvent evento, String motor, int longitud, BitsetChart tabla,
+            boolean derivada) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.motor = motor;
+            evento.longitud = longitud;
+            evento.filtrada = tabla == null;
+            evento.densidad = tabla == null ? 0 : tabla.densidad();
+            evento.derivada = derivada;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Igual que {@link #isDerived(String)}, pero las filas de la tabla se
+     * reparten entre los hilos del pool común. Las palabras de menos de
+     * {@link BitsetChart#LONGITUD_MINIMA_PARALELA} símbolos se analizan de
+     * forma secuencial.
+     *
+     * @param word La palabra a verificar.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public boolean isDerivedParallel(String word) throws CYKAlgorithmException {
+        return isDerivedParallel(word, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Igual que {@link #isDerivedParallel(String)}, usando el pool indicado.
+     */
+    public boolean isDerivedParallel(String word, ForkJoinPool pool) throws CYKAlgorithmException {
+        ParseEvent evento = null;
+        if (ParseEvent.activo()) {
+            evento = new ParseEvent();
+            evento.begin();
+        }
+        int[] simbolos = codificar(word);
+        BitsetChart tabla = null;
+        boolean derivada = false;
+        if (admitePrefiltro(simbolos, 0, simbolos.length)) {
+            tabla = new BitsetChart(simbolos.length, palabras);
+            tabla.rellenarParalelo(this, simbolos, 0, pool);
+            derivada = tabla.contiene(simbolos.length - 1, 0, axioma);
+        }
+        if (evento != null)
+            registrar(evento, "cyk-paralelo", simbolos.length, tabla, derivada);
+        return derivada;
+    }
+
+    /**
+     * Igual que {@link #isDerived(String)}, pero usando el motor de análisis
+     * indicado.
+     *
+     * @param word La palabra a verificar.
+     * @param engine El motor con el que se analiza la palabra.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived, o si el
+     * motor no admite esta gramática.
+     */
+    public boolean isDerived(String word, ParserEngine engine) throws CYKAlgorithmException {
+        ParseEvent evento = null;
+        if (ParseEvent.activo()) {
+            evento = new ParseEvent();
+            evento.begin();
+        }
+        int[] simbolos = codificar(word);
+        boolean filtrada = !admitePrefiltro(simbolos, 0, simbolos.length);
+        boolean derivada = !filtrada && reconocedor(engine).reconoce(simbolos, 0, simbolos.length);
+        if (evento != null) {
+            evento.end();
+            if (evento.shouldCommit()) {
+                // Los motores no exponen su tabla.
+                evento.motor = engine.nombre();
+                evento.longitud = simbolos.length;
+                evento.filtrada = filtrada;
+                evento.densidad = filtrada ? 0 : -1;
+                evento.derivada = derivada;
+                evento.commit();
+            }
+        }
+        return derivada;
+    }
+
+    /**
+     * @return El reconocedor del motor para esta gramática. Se reutiliza el
+     * de la llamada anterior si el motor es el mismo objeto.
+     */
+    private Recognizer reconocedor(ParserEngine engine) throws CYKAlgorithmException {
+        Preparado ultimo = preparado;
+        if (ultimo != null && ultimo.motor == engine)
+            return ultimo.reconocedor;
+        Recognizer reconocedor = engine.reconocedor(this);
+        preparado = new Preparado(engine, reconocedor);
+        return reconocedor;
+    }
+
+    /**
+     * Analiza la palabra guardando, además de la tabla, cómo se ha obtenido
+     * cada no terminal de cada celda, de modo que se pueden recorrer sus
+     * árboles de derivación.
+     *
+     * @param word La palabra a analizar.
+     * @return El bosque de análisis de la palabra.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public ParseForest parse(String word) throws CYKAlgorithmException {
+        return new ParseForest(this, codificar(word));
+    }
+
+    /**
+     * Devuelve la tabla calculada por el algoritmo CYK para la palabra, con el
+     * mismo formato que {@code CYKAlgorithm.algorithmStateToString}.
+     *
+     * @param word La palabra a verificar.
+     * @return Un String con todas las celdas de la tabla.
+     * @throws CYKAlgorithmException Si la palabra es vacía, si contiene
+     * símbolos que no son terminales de la gramática o si la gramática carece
+     * de axioma.
+     */
+    public String algorithmStateToString(String word) throws CYKAlgorithmException {
+        StringBuilder sb = new StringBuilder();
+        try {
+            algorithmStateToString(word, sb, ChartFormat.DENSE);
+        } catch (IOException e) {
+            // Un StringBuilder nunca falla al escribir.
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Calcula la tabla del algoritmo CYK para la palabra y la escribe fila a
+     * fila en el destino, sin construir antes el texto completo.
+     *
+     * @param word La palabra a verificar.
+     * @param destino Donde se escribe la tabla.
+     * @param formato {@link ChartFormat#DENSE} para el formato de
+     * {@link #algorithmStateToString(String)} o {@link ChartFormat#SPARSE}
+     * para escribir sólo las celdas no vacías.
+     * @throws CYKAlgorithmException En los mismos casos que
+     * algorithmStateToString.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public void algorithmStateToString(String word, Appendable destino, ChartFormat formato)
+            throws CYKAlgorithmException, IOException {
+        int[] simbolos = codificar(word);
+        BitsetChart tabla = new BitsetChart(simbolos.length, palabras);
+        tabla.rellenar(this, simbolos, 0);
+        ChartRenderer.render(this, tabla, destino, formato);
+    }
+
+    /**
+     * Igual que {@link #algorithmStateToString(String, Appendable, ChartFormat)},
+     * escribiendo la tabla en UTF-8 en el canal. El canal no se cierra.
+     */
+    public void algorithmStateToString(String word, WritableByteChannel destino, ChartFormat formato)
+            throws CYKAlgorithmException, IOException {
+        Writer escritor = Channels.newWriter(destino, StandardCharsets.UTF_8.newEncoder(), 1 << 16);
+        algorithmStateToString(word, escritor, formato);
+        escritor.flush();
+    }
+
+    /**
+     * Motor con el reconocedor que ha preparado para la gramática.
+     */
+    private static final class Preparado {
+
+        private final ParserEngine motor;
+        private final Recognizer reconocedor;
+
+        Preparado(ParserEngine motor, Recognizer reconocedor) {
+            this.motor = motor;
+            this.reconocedor = reconocedor;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binario de una gramática compilada, para cargarla en pocos
+ * milisegundos en lugar de volver a construirla producción a producción.
+ *
+ * El fichero guarda las tablas de {@link CompiledGrammar} tal cual están en
+ * memoria y, opcionalmente, los nombres de una {@link SymbolTable}. Todos los
+ * enteros van en orden big-endian:
+ * <pre>
+ * "CYKG" versión banderas n t axioma reglasBinarias reglasTerminales nombres P  (10 int)
+ * no terminales (n char), terminales (t char), relleno hasta múltiplo de 8
+ * máscaras terminales (t * W long), máscaras de los pares (B, C) (P * W long)
+ * log-probabilidades binarias y terminales (double)
+ * primer par de cada B (n + 1 int), C de cada par (P int)
+ * nombres: carácter (char), longitud (int) y bytes UTF-8 de cada uno
+ * CRC32 de todo lo anterior (int)
+ * </pre>
+ * siendo W = (n + 63) / 64 y P el número de pares (B, C) con alguna regla.
+ * Al cargar, el fichero se proyecta en memoria y se comprueban la cabecera, la versión y el CRC antes de leer las tablas con
+ * copias en bloque. Los índices derivados (reglas, filtro previo) se
+ * reconstruyen, porque son rápidos de calcular a partir de las máscaras.
+ *
+ * Los ficheros están limitados a 2 GiB, el tamaño máximo de una proyección.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class CompiledGrammarFile {
+
+    /**
+     * Versión del formato, la única que se lee.
+     */
+    public static final int VERSION = 2;
+
+    private static final int MAGIA = 0x43594B47; // "CYKG"
+    private static final int CABECERA = 10 * Integer.BYTES;
+    private static final int FNC = 1;
+    private static final int DERIVA_VACIA = 2;
+
+    private CompiledGrammarFile() {
+    }
+
+    /**
+     * Guarda la gramática en el fichero, sustituyéndolo si ya existe.
+     *
+     * @param gramatica La gramática compilada.
+     * @param tabla Tabla de símbolos cuyos nombres se guardan, o null.
+     * @param fichero El fichero de destino.
+     * @throws IOException Si falla la escritura o el fichero superaría 2 GiB.
+     */
+    public static void guardar(CompiledGrammar gramatica, SymbolTable tabla, Path fichero) throws IOException {
+        char[] nt = gramatica.tablaNoTerminales();
+        char[] t = gramatica.tablaTerminales();
+        long[] cabezasTerminales = gramatica.tablaCabezasTerminales();
+        BinaryPairs pares = gramatica.tablaPares();
+        double[] logReglas = gramatica.tablaLogReglas();
+        double[] logTerminales = gramatica.tablaLogReglasTerminales();
+        int numNombres = tabla == null ? 0 : tabla.size();
+        byte[][] nombres = new byte[numNombres][];
+        long tamanio = alinear(CABECERA + 2L * (nt.length + t.length))
+                + 8L * (cabezasTerminales.length + pares.cabezas.length + logReglas.length + logTerminales.length)
+                + 4L * (pares.primerPar.length + pares.parDerecho.length);
+        for (int i = 0; i < numNombres; i++) {
+            nombres[i] = tabla.nombre(i).getBytes(StandardCharsets.UTF_8);
+            tamanio += Character.BYTES + Integer.BYTES + nombres[i].length;
+        }
+        tamanio += Integer.BYTES;
+        if (tamanio > Integer.MAX_VALUE)
+            throw new IOException("Gramática demasiado grande para el formato binario: " + tamanio + " bytes");
+
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio);
+            int banderas = (gramatica.esFNC() ? FNC : 0) | (gramatica.derivesEmptyWord() ? DERIVA_VACIA : 0);
+            buffer.putInt(MAGIA).putInt(VERSION).putInt(banderas).putInt(nt.length).putInt(t.length)
+                    .putInt(gramatica.axioma()).putInt(logReglas.length).putInt(logTerminales.length)
+                    .putInt(numNombres).putInt(pares.numPares());
+            buffer.asCharBuffer().put(nt).put(t);
+            buffer.position((int) alinear(buffer.position() + 2L * (nt.length + t.length)));
+            buffer.asLongBuffer().put(cabezasTerminales).put(pares.cabezas);
+            buffer.position(buffer.position() + 8 * (cabezasTerminales.length + pares.cabezas.length));
+            buffer.asDoubleBuffer().put(logReglas).put(logTerminales);
+            buffer.position(buffer.position() + 8 * (logReglas.length + logTerminales.length));
+            buffer.asIntBuffer().put(pares.primerPar).put(pares.parDerecho);
+            buffer.position(buffer.position() + 4 * (pares.primerPar.length + pares.parDerecho.length));
+            for (int i = 0; i < numNombres; i++) {
+                buffer.putChar(tabla.caracter(i)).putInt(nombres[i].length).put(nombres[i]);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc.getValue());
+            buffer.force();
+        }
+    }
+
+    /**
+     * Carga una gramática guardada con {@link #guardar}, sin sus nombres de
+     * terminales.
+     *
+     * @param fichero El fichero de la gramática.
+     * @return La gramática compilada.
+     * @throws IOException Si no se puede leer el fichero.
+     * @throws CYKAlgorithmException Si el fichero no tiene el formato, tiene
+     * otra versión o su CRC no coincide.
+     */
+    public static CompiledGrammar cargar(Path fichero) throws IOException, CYKAlgorithmException {
+        return cargar(fichero, null);
+    }
+
+    /**
+     * Igual que {@link #cargar(Path)}, registrando además en la tabla los
+     * nombres de los terminales con los mismos identificadores que tenían al
+     * guardarlos.
+     *
+     * @param tabla Una tabla de símbolos vacía, o null para no leer los
+     * nombres.
+     * @throws CYKAlgorithmException Además, si la tabla no está vacía.
+     */
+    public static CompiledGrammar cargar(Path fichero, SymbolTable tabla) throws IOException, CYKAlgorithmException {
+        if (tabla != null && tabla.size() != 0)
+            throw new CYKAlgorithmException();
+        ByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio < CABECERA + Integer.BYTES || tamanio > Integer.MAX_VALUE)
+                throw new CYKAlgorithmException();
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+        }
+        int fin = buffer.limit() - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(fin));
+        if (buffer.getInt(0) != MAGIA || buffer.getInt(4) != VERSION || buffer.getInt(fin) != (int) crc.getValue())
+            throw new CYKAlgorithmException();
+
+        try {
+            buffer.position(8);
+            int banderas = buffer.getInt();
+            int n = buffer.getInt();
+            int numTerminales = buffer.getInt();
+            int axioma = buffer.getInt();
+            int numReglas = buffer.getInt();
+            int numReglasTerminales = buffer.getInt();
+            int numNombres = buffer.getInt();
+            int numPares = buffer.getInt();
+            int w = (n + 63) >>> 6;
+            char[] nt = new char[n];
+            char[] t = new char[numTerminales];
+            buffer.asCharBuffer().get(nt).get(t);
+            buffer.position((int) alinear(buffer.position() + 2L * (n + numTerminales)));
+            long[] cabezasTerminales = new long[Math.multiplyExact(numTerminales, w)];
+            long[] cabezasBinarias = new long[Math.multiplyExact(numPares, w)];
+            buffer.asLongBuffer().get(cabezasTerminales).get(cabezasBinarias);
+            buffer.position(buffer.position() + 8 * (cabezasTerminales.length + cabezasBinarias.length));
+            double[] logReglas = new double[numReglas];
+            double[] logTerminales = new double[numReglasTerminales];
+            buffer.asDoubleBuffer().get(logReglas).get(logTerminales);
+            buffer.position(buffer.position() + 8 * (numReglas + numReglasTerminales));
+            int[] primerPar = new int[n + 1];
+            int[] parDerecho = new int[numPares];
+            buffer.asIntBuffer().get(primerPar).get(parDerecho);
+            buffer.position(buffer.position() + 4 * (n + 1 + numPares));
+            BinaryPairs pares = new BinaryPairs(primerPar, parDerecho, cabezasBinarias);
+            if (!coherentes(n, w, pares))
+                throw new CYKAlgorithmException();
+            if (!creciente(nt) || !creciente(t) || axioma < -1 || axioma >= n
+                    || numReglas != bits(pares.cabezas) || numReglasTerminales != bits(cabezasTerminales))
+                throw new CYKAlgorithmException();
+            for (int i = 0; i < numNombres && tabla != null; i++) {
+                char caracter = buffer.getChar();
+                byte[] nombre = new byte[buffer.getInt()];
+                buffer.get(nombre);
+                if (tabla.registrar(new String(nombre, StandardCharsets.UTF_8), caracter) != i)
+                    throw new CYKAlgorithmException();
+            }
+            return new CompiledGrammar(nt, t, axioma, cabezasTerminales, pares, Collections.emptyMap(),
+                    (banderas & FNC) != 0, (banderas & DERIVA_VACIA) != 0, logReglas, logTerminales);
+        } catch (RuntimeException e) {
+            // Tamaños incoherentes con el del fichero.
+            throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * @return TRUE si el fichero empieza por la marca del formato binario.
+     */
+    public static boolean esBinario(Path fichero) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            ByteBuffer marca = ByteBuffer.allocate(Integer.BYTES);
+            while (marca.hasRemaining() && canal.read(marca) >= 0) {
+            }
+            return !marca.hasRemaining() && marca.getInt(0) == MAGIA;
+        }
+    }
+
+    private static long alinear(long posicion) {
+        return (posicion + 7) & ~7L;
+    }
+
+    private static boolean creciente(char[] simbolos) {
+        for (int i = 1; i < simbolos.length; i++) {
+            if (simbolos[i - 1] >= simbolos[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return TRUE si los pares están ordenados por (B, C), sin repetir, y
+     * todos tienen alguna cabeza.
+     */
+    private static boolean coherentes(int n, int w, BinaryPairs pares) {
+        int[] primerPar = pares.primerPar;
+        if (primerPar[0] != 0 || primerPar[n] != pares.numPares())
+            return false;
+        for (int b = 0; b < n; b++) {
+            if (primerPar[b] > primerPar[b + 1])
+                return false;
+            for (int g = primerPar[b]; g < primerPar[b + 1]; g++) {
+                int c = pares.parDerecho[g];
+                if (c < 0 || c >= n || g > primerPar[b] && pares.parDerecho[g - 1] >= c)
+                    return false;
+                long cabezas = 0;
+                for (int x = 0; x < w; x++) {
+                    cabezas |= pares.cabezas[g * w + x];
+                }
+                if (cabezas == 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static int bits(long[] mascaras) {
+        int total = 0;
+        for (long m : mascaras) {
+            total += Long.bitCount(m);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,186 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+/**
+ * Filtro previo que descarta en tiempo lineal palabras que no pueden pertenecer
+ * al lenguaje, antes de construir la tabla del algoritmo CYK.
+ *
+ * A partir de las reglas de la gramática compilada se calculan:
+ * <ul>
+ * <li>los no terminales productivos (que derivan alguna palabra) y los
+ * alcanzables desde el axioma a través de reglas productivas;</li>
+ * <li>FIRST y LAST del axioma: los terminales con los que puede empezar y
+ * terminar una palabra del lenguaje;</li>
+ * <li>los pares de terminales que pueden aparecer seguidos en alguna
+ * derivación: para cada regla alcanzable A::=BC, LAST(B) x FIRST(C);</li>
+ * <li>las longitudes menores que 64 que puede tener una palabra derivada de
+ * cada no terminal.</li>
+ * </ul>
+ * Todos los conjuntos son aproximaciones por exceso, de modo que el filtro
+ * nunca descarta una palabra del lenguaje.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class Prefilter {
+
+    /**
+     * Número máximo de terminales para el que se guarda la tabla de pares;
+     * con más terminales sólo se comprueban los extremos y la longitud.
+     */
+    private static final int TERMINALES_MAXIMOS_PARES = 1 << 12;
+
+    private final boolean vacio;
+    private final int palabrasTerminales;
+    private final long[] primeros;
+    private final long[] ultimos;
+    private final long[] pares;
+    private final long longitudes;
+
+    Prefilter(CompiledGrammar g) {
+        int n = g.numNoTerminales();
+        int t = g.numTerminales();
+        int tw = (t + 63) >>> 6;
+        this.palabrasTerminales = tw;
+
+        boolean[] productivo = new boolean[n];
+        long[] first = new long[n * tw];
+        long[] last = new long[n * tw];
+        long[] lon = new long[n];
+        for (int a = 0; a < n; a++) {
+            for (int ter = 0; ter < t; ter++) {
+                if (g.derivaTerminal(a, ter)) {
+                    productivo[a] = true;
+                    first[a * tw + (ter >>> 6)] |= 1L << ter;
+                    last[a * tw + (ter >>> 6)] |= 1L << ter;
+                    lon[a] |= 1L << 1;
+                }
+            }
+        }
+
+        // Punto fijo: los conjuntos sólo crecen y son finitos.
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int r = 0; r < g.numReglasBinarias(); r++) {
+                int a = g.reglaCabeza(r);
+                int b = g.reglaIzquierdo(r);
+                int c = g.reglaDerecho(r);
+                if (!productivo[b] || !productivo[c])
+                    continue;
+                if (!productivo[a]) {
+                    productivo[a] = true;
+                    cambio = true;
+                }
+                cambio |= unir(first, a * tw, first, b * tw, tw);
+                cambio |= unir(last, a * tw, last, c * tw, tw);
+                long suma = lon[a] | sumar(lon[b], lon[c]);
+                if (suma != lon[a]) {
+                    lon[a] = suma;
+                    cambio = true;
+                }
+            }
+        }
+
+        int s = g.axioma();
+        this.vacio = s < 0 || !productivo[s];
+        this.primeros = new long[tw];
+        this.ultimos = new long[tw];
+        if (!vacio) {
+            System.arraycopy(first, s * tw, primeros, 0, tw);
+            System.arraycopy(last, s * tw, ultimos, 0, tw);
+        }
+        this.longitudes = vacio ? 0 : lon[s];
+
+        if (vacio || t > TERMINALES_MAXIMOS_PARES) {
+            this.pares = null;
+            return;
+        }
+        boolean[] alcanzable = new boolean[n];
+        alcanzable[s] = true;
+        cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int r = 0; r < g.numReglasBinarias(); r++) {
+                int a = g.reglaCabeza(r);
+                int b = g.reglaIzquierdo(r);
+                int c = g.reglaDerecho(r);
+                if (alcanzable[a] && productivo[b] && productivo[c] && (!alcanzable[b] || !alcanzable[c])) {
+                    alcanzable[b] = true;
+                    alcanzable[c] = true;
+                    cambio = true;
+                }
+            }
+        }
+        this.pares = new long[t * tw];
+        for (int r = 0; r < g.numReglasBinarias(); r++) {
+            int a = g.reglaCabeza(r);
+            int b = g.reglaIzquierdo(r);
+            int c = g.reglaDerecho(r);
+            if (!alcanzable[a] || !productivo[b] || !productivo[c])
+                continue;
+            for (int w = 0; w < tw; w++) {
+                long izq = last[b * tw + w];
+                while (izq != 0) {
+                    int x = (w << 6) + Long.numberOfTrailingZeros(izq);
+                    izq &= izq - 1;
+                    unir(pares, x * tw, first, c * tw, tw);
+                }
+            }
+        }
+    }
+
+    /**
+     * destino |= origen sobre tw palabras.
+     *
+     * @return TRUE si destino ha cambiado.
+     */
+    private static boolean unir(long[] destino, int offDestino, long[] origen, int offOrigen, int tw) {
+        boolean cambio = false;
+        for (int w = 0; w < tw; w++) {
+            long antes = destino[offDestino + w];
+            long despues = antes | origen[offOrigen + w];
+            if (despues != antes) {
+                destino[offDestino + w] = despues;
+                cambio = true;
+            }
+        }
+        return cambio;
+    }
+
+    /**
+     * Suma de conjuntos de longitudes {x + y}, truncada a longitudes menores
+     * que 64.
+     */
+    private static long sumar(long x, long y) {
+        long resultado = 0;
+        while (x != 0) {
+            int i = Long.numberOfTrailingZeros(x);
+            x &= x - 1;
+            resultado |= y << i;
+        }
+        return resultado;
+    }
+
+    private boolean contiene(long[] conjunto, int off, int ter) {
+        return (conjunto[off + (ter >>> 6)] & (1L << ter)) != 0;
+    }
+
+    /**
+     * @return FALSE si la palabra seguro que no pertenece al lenguaje; TRUE
+     * si el filtro no puede descartarla.
+     */
+    boolean admite(int[] simbolos, int desde, int longitud) {
+        if (vacio)
+            return false;
+        if (longitud < 64 && (longitudes & (1L << longitud)) == 0)
+            return false;
+        if (!contiene(primeros, 0, simbolos[desde]) || !contiene(ultimos, 0, simbolos[desde + longitud - 1]))
+            return false;
+        if (pares != null) {
+            for (int i = desde + 1; i < desde + longitud; i++) {
+                if (!contiene(pares, simbolos[i - 1] * palabrasTerminales, simbolos[i]))
+                    return false;
+            }
+        }
+        return true;
+    }
+}
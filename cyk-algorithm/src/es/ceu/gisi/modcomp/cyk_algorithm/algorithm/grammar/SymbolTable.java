@@ -0,0 +1,165 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Tabla de símbolos terminales: asigna a cada terminal un identificador
+ * entero, en orden de registro y empezando por 0, que es el que se usa en las
+ * palabras de tipo int[] o IntBuffer.
+ *
+ * Los terminales pueden tener cualquier nombre. Internamente la gramática
+ * trabaja con caracteres, así que cada terminal recibe también un carácter:
+ * los terminales de una letra minúscula usan esa letra, y el resto un
+ * carácter a partir de U+0100 que no es una letra ni un carácter de uso
+ * privado (reservados para los no terminales y sus auxiliares). Así caben
+ * {@link #MAXIMO_CON_NOMBRE} terminales con nombre, unos 8000 según la
+ * versión de Unicode de la máquina virtual, además de las letras minúsculas.
+ *
+ * El registro está sincronizado y la consulta de caracteres no necesita
+ * cerrojo, de modo que las palabras pueden traducirse desde varios hilos
+ * mientras se registran terminales nuevos.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class SymbolTable {
+
+    /**
+     * Primer carácter que se prueba para los terminales con nombre.
+     */
+    private static final char PRIMER_CARACTER = '\u0100';
+
+    /**
+     * Número máximo de terminales con nombre que no son una letra minúscula.
+     */
+    public static final int MAXIMO_CON_NOMBRE = contarDisponibles();
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final HashMap<Character, Integer> porCaracter = new HashMap<>();
+    private String[] nombres = new String[16];
+    private volatile char[] caracteres = new char[16];
+    private volatile int tamanio;
+    private int siguiente = PRIMER_CARACTER;
+
+    /**
+     * Registra un terminal con nombre y le asigna un carácter libre. Si el
+     * nombre es una letra minúscula, el carácter es esa letra, el mismo que
+     * tendría el terminal registrado con {@link #registrar(String, char)}.
+     *
+     * @param nombre Nombre del terminal.
+     * @return El identificador del terminal, o -1 si el nombre ya estaba
+     * registrado o no quedan caracteres libres, porque ya hay
+     * {@link #MAXIMO_CON_NOMBRE}.
+     */
+    public synchronized int registrar(String nombre) {
+        if (ids.containsKey(nombre))
+            return -1;
+        if (nombre.length() == 1 && Character.isLowerCase(nombre.charAt(0)))
+            return registrar(nombre, nombre.charAt(0));
+        while (siguiente <= Character.MAX_VALUE && !libre((char) siguiente)) {
+            siguiente++;
+        }
+        if (siguiente > Character.MAX_VALUE)
+            return -1;
+        return registrar(nombre, (char) siguiente++);
+    }
+
+    /**
+     * Registra un terminal con el carácter indicado.
+     *
+     * @param nombre Nombre del terminal.
+     * @param caracter Carácter del terminal en la gramática.
+     * @return El identificador del terminal, o -1 si el nombre o el carácter
+     * ya estaban registrados.
+     */
+    public synchronized int registrar(String nombre, char caracter) {
+        if (ids.containsKey(nombre) || porCaracter.containsKey(caracter))
+            return -1;
+        int id = tamanio;
+        if (id == nombres.length) {
+            nombres = Arrays.copyOf(nombres, id * 2);
+            caracteres = Arrays.copyOf(caracteres, id * 2);
+        }
+        nombres[id] = nombre;
+        caracteres[id] = caracter;
+        ids.put(nombre, id);
+        porCaracter.put(caracter, id);
+        tamanio = id + 1;
+        return id;
+    }
+
+    /**
+     * @return Una tabla nueva con los mismos terminales, identificadores y
+     * caracteres, en la que se pueden registrar terminales sin modificar
+     * ésta.
+     */
+    public synchronized SymbolTable copia() {
+        SymbolTable copia = new SymbolTable();
+        for (int id = 0; id < tamanio; id++) {
+            copia.registrar(nombres[id], caracteres[id]);
+        }
+        copia.siguiente = siguiente;
+        return copia;
+    }
+
+    private boolean libre(char c) {
+        return disponible(c) && !porCaracter.containsKey(c);
+    }
+
+    private static boolean disponible(char c) {
+        return !Character.isLetter(c) && !Character.isSurrogate(c) && !BinaryNormalForm.esAuxiliar(c);
+    }
+
+    private static int contarDisponibles() {
+        int disponibles = 0;
+        for (int c = PRIMER_CARACTER; c <= Character.MAX_VALUE; c++) {
+            if (disponible((char) c))
+                disponibles++;
+        }
+        return disponibles;
+    }
+
+    /**
+     * @return El identificador del terminal, o -1 si no está registrado.
+     */
+    public synchronized int id(String nombre) {
+        Integer id = ids.get(nombre);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return El identificador del terminal con ese carácter, o -1 si no está
+     * registrado.
+     */
+    public synchronized int id(char caracter) {
+        Integer id = porCaracter.get(caracter);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return El nombre del terminal.
+     */
+    public synchronized String nombre(int id) {
+        if (id < 0 || id >= tamanio)
+            throw new IndexOutOfBoundsException(id);
+        return nombres[id];
+    }
+
+    /**
+     * @return El carácter del terminal en la gramática, o 0 si el
+     * identificador no está registrado.
+     */
+    public char caracter(int id) {
+        // Se lee primero el tamaño: el registro escribe el carácter antes.
+        int registrados = tamanio;
+        char[] actuales = caracteres;
+        return id >= 0 && id < registrados ? actuales[id] : 0;
+    }
+
+    /**
+     * @return El número de terminales registrados.
+     */
+    public int size() {
+        return tamanio;
+    }
+}
@@ -0,0 +1,32 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder que cubre la compilación de una gramática. La
+ * duración del evento es el tiempo de compilación.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@Name("es.ceu.gisi.modcomp.cyk.GrammarCompilation")
+@Label("Compilación de gramática")
+@Category("CYK")
+@Description("Compilación de una gramática en FNC a tablas de identificadores")
+public final class GrammarCompilationEvent extends Event {
+
+    @Label("No terminales")
+    public int noTerminales;
+
+    @Label("Terminales")
+    public int terminales;
+
+    @Label("Reglas binarias")
+    public int reglasBinarias;
+
+    @Label("Reglas terminales")
+    public int reglasTerminales;
+}
@@ -0,0 +1,52 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder que cubre el análisis de una palabra. La
+ * duración del evento es el tiempo del análisis.
+ *
+ * Sólo se crea el evento cuando está activado en la grabación, consultándolo
+ * antes con {@link #activo()}, de modo que sin grabación el análisis no
+ * reserva memoria.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+@Name("es.ceu.gisi.modcomp.cyk.Parse")
+@Label("Análisis CYK")
+@Category("CYK")
+@Description("Análisis de una palabra con una gramática compilada")
+public final class ParseEvent extends Event {
+
+    private static final EventType TIPO = EventType.getEventType(ParseEvent.class);
+
+    @Label("Motor")
+    public String motor;
+
+    @Label("Longitud")
+    @Description("Longitud de la palabra")
+    public int longitud;
+
+    @Label("Densidad")
+    @Description("Fracción de celdas no vacías de la tabla, o -1 si el motor no la expone")
+    public double densidad;
+
+    @Label("Filtrada")
+    @Description("La palabra se descartó con el filtro previo, sin rellenar la tabla")
+    public boolean filtrada;
+
+    @Label("Derivada")
+    public boolean derivada;
+
+    /**
+     * @return TRUE si alguna grabación tiene activado el evento.
+     */
+    public static boolean activo() {
+        return TIPO.isEnabled();
+    }
+}
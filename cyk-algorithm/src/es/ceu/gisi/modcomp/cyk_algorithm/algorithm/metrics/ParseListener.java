@@ -0,0 +1,40 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics;
+
+/**
+ * Recibe las métricas del relleno de la tabla CYK mientras se analiza una
+ * palabra.
+ *
+ * Sólo se usa el relleno instrumentado cuando hay un oyente; sin él, el
+ * análisis sigue el camino habitual y no mide nada. Los métodos se llaman
+ * desde el hilo que analiza la palabra, así que un mismo oyente compartido
+ * entre hilos debe ser seguro para su uso concurrente.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public interface ParseListener {
+
+    /**
+     * Se llama al terminar cada fila de la tabla, empezando por la de los
+     * terminales.
+     *
+     * @param longitudSubcadena Longitud de las subcadenas de la fila.
+     * @param celdas Número de celdas de la fila.
+     * @param celdasNoVacias Celdas de la fila con algún no terminal.
+     * @param combinaciones Pares de celdas hijas combinados, uno por celda y
+     * punto de corte.
+     * @param consultas Consultas a los índices de reglas: un terminal por
+     * celda en la primera fila y, en el resto, los pares (B, C) buscados.
+     * @param nanos Tiempo empleado en la fila, en nanosegundos.
+     */
+    void alRellenarFila(int longitudSubcadena, int celdas, int celdasNoVacias,
+            long combinaciones, long consultas, long nanos);
+
+    /**
+     * Se llama al terminar el análisis de la palabra.
+     *
+     * @param longitud Longitud de la palabra.
+     * @param derivada TRUE si la palabra pertenece al lenguaje.
+     * @param nanos Tiempo total del análisis, en nanosegundos.
+     */
+    void alTerminar(int longitud, boolean derivada, long nanos);
+}
@@ -0,0 +1,127 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Oyente que acumula las métricas de todas las palabras analizadas: palabras,
+ * celdas, combinaciones, consultas al índice de reglas y tiempo, éste también
+ * desglosado por longitud de subcadena.
+ *
+ * Puede compartirse entre varios hilos: cada llamada actualiza los contadores
+ * bajo el cerrojo del objeto.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class ParseMetrics implements ParseListener {
+
+    private long palabras;
+    private long derivadas;
+    private long celdas;
+    private long celdasNoVacias;
+    private long combinaciones;
+    private long consultas;
+    private long nanos;
+    private long[] nanosPorLongitud = new long[16];
+
+    @Override
+    public synchronized void alRellenarFila(int longitudSubcadena, int celdas, int celdasNoVacias,
+            long combinaciones, long consultas, long nanos) {
+        this.celdas += celdas;
+        this.celdasNoVacias += celdasNoVacias;
+        this.combinaciones += combinaciones;
+        this.consultas += consultas;
+        if (longitudSubcadena >= nanosPorLongitud.length)
+            nanosPorLongitud = Arrays.copyOf(nanosPorLongitud,
+                    Math.max(longitudSubcadena + 1, nanosPorLongitud.length * 2));
+        nanosPorLongitud[longitudSubcadena] += nanos;
+    }
+
+    @Override
+    public synchronized void alTerminar(int longitud, boolean derivada, long nanos) {
+        palabras++;
+        if (derivada)
+            derivadas++;
+        this.nanos += nanos;
+    }
+
+    /**
+     * @return El número de palabras analizadas.
+     */
+    public synchronized long palabras() {
+        return palabras;
+    }
+
+    /**
+     * @return El número de palabras que pertenecían al lenguaje.
+     */
+    public synchronized long derivadas() {
+        return derivadas;
+    }
+
+    /**
+     * @return El número de celdas rellenadas.
+     */
+    public synchronized long celdas() {
+        return celdas;
+    }
+
+    /**
+     * @return El número de celdas que han quedado con algún no terminal.
+     */
+    public synchronized long celdasNoVacias() {
+        return celdasNoVacias;
+    }
+
+    /**
+     * @return La fracción de celdas no vacías, entre 0 y 1.
+     */
+    public synchronized double densidad() {
+        return celdas == 0 ? 0 : (double) celdasNoVacias / celdas;
+    }
+
+    /**
+     * @return El número de pares de celdas hijas combinados.
+     */
+    public synchronized long combinaciones() {
+        return combinaciones;
+    }
+
+    /**
+     * @return El número de consultas a los índices de reglas.
+     */
+    public synchronized long consultas() {
+        return consultas;
+    }
+
+    /**
+     * @return El tiempo total de análisis, en nanosegundos.
+     */
+    public synchronized long nanos() {
+        return nanos;
+    }
+
+    /**
+     * @param longitudSubcadena Longitud de subcadena, a partir de 1.
+     * @return El tiempo empleado en las filas de esa longitud, en
+     * nanosegundos.
+     */
+    public synchronized long nanosPorLongitud(int longitudSubcadena) {
+        return longitudSubcadena < nanosPorLongitud.length ? nanosPorLongitud[longitudSubcadena] : 0;
+    }
+
+    /**
+     * Pone a cero todos los contadores.
+     */
+    public synchronized void reiniciar() {
+        palabras = derivadas = celdas = celdasNoVacias = combinaciones = consultas = nanos = 0;
+        Arrays.fill(nanosPorLongitud, 0L);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "palabras=" + palabras + " derivadas=" + derivadas + " celdas=" + celdas
+                + " densidad=" + String.format(java.util.Locale.ROOT, "%.3f", densidad())
+                + " combinaciones=" + combinaciones + " consultas=" + consultas
+                + " ms=" + nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,394 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Recognizer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.SequentialCYKEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammarFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Programa de línea de comandos que comprueba un fichero de palabras, una por
+ * línea, contra una gramática leída con {@link GrammarFile} o guardada en
+ * binario con {@link CompiledGrammarFile}, que se distingue por su cabecera.
+ *
+ * <pre>
+ * java -jar cyk.jar -g gramatica.txt [-i palabras.txt] [-o salida.txt] [-t hilos]
+ * </pre>
+ *
+ * Sin -i las palabras se leen de la entrada estándar y sin -o los resultados
+ * se escriben en la salida estándar, una línea "palabra\ttrue", "\tfalse" o
+ * "\terror" por palabra y en el mismo orden. Al terminar se escribe en la
+ * salida de errores el número de palabras por segundo y los percentiles de la
+ * latencia por palabra.
+ *
+ * Los ficheros de entrada se proyectan en memoria por ventanas y cada ventana
+ * se reparte en bloques de líneas completas entre los hilos. Las palabras se
+ * traducen a identificadores de terminales directamente desde los bytes, sin
+ * crear un String por palabra, salvo las que contienen caracteres no ASCII,
+ * que se decodifican como UTF-8.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class BatchCli {
+
+    /**
+     * Tamaño aproximado, en bytes, del bloque de líneas de cada tarea.
+     */
+    private static final int BLOQUE = 1 << 22;
+
+    /**
+     * Tamaño de las ventanas en que se proyecta el fichero de entrada.
+     */
+    private static final long VENTANA = 1L << 28;
+
+    private static final byte[] VERDADERO = "\ttrue\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSO = "\tfalse\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR = "\terror\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final CompiledGrammar gramatica;
+    private final Recognizer reconocedor;
+    private final ExecutorService hilos;
+    private final int maximoPendientes;
+    private final ArrayDeque<Future<Resultado>> pendientes = new ArrayDeque<>();
+    private final WritableByteChannel salida;
+    private final LatencyHistogram latencias = new LatencyHistogram();
+    private long pertenecen;
+    private long errores;
+
+    private BatchCli(CompiledGrammar gramatica, int numHilos, WritableByteChannel salida)
+            throws CYKAlgorithmException {
+        this.gramatica = gramatica;
+        this.reconocedor = new SequentialCYKEngine().reconocedor(gramatica);
+        this.hilos = Executors.newFixedThreadPool(numHilos);
+        this.maximoPendientes = 4 * numHilos;
+        this.salida = salida;
+    }
+
+    public static void main(String[] args) {
+        System.exit(ejecutar(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Ejecuta el programa con los argumentos indicados.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @param entrada De donde se leen las palabras si no se indica -i.
+     * @param salidaEstandar Donde se escriben los resultados si no se indica
+     * -o.
+     * @param informe Donde se escriben el resumen y los errores.
+     * @return 0 si todo ha ido bien, 1 si ha fallado la lectura o la
+     * gramática y 2 si los argumentos no son válidos.
+     */
+    public static int ejecutar(String[] args, InputStream entrada, OutputStream salidaEstandar, PrintStream informe) {
+        Path gramatica = null;
+        Path palabras = null;
+        Path resultados = null;
+        int numHilos = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-g":
+                        gramatica = Paths.get(args[++i]);
+                        break;
+                    case "-i":
+                        String valor = args[++i];
+                        palabras = valor.equals("-") ? null : Paths.get(valor);
+                        break;
+                    case "-o":
+                        resultados = Paths.get(args[++i]);
+                        break;
+                    case "-t":
+                        numHilos = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            gramatica = null;
+        }
+        if (gramatica == null || numHilos < 1) {
+            informe.println("Uso: -g gramatica [-i palabras] [-o salida] [-t hilos]");
+            return 2;
+        }
+
+        BatchCli cli = null;
+        WritableByteChannel canalSalida = null;
+        try {
+            canalSalida = resultados == null
+                    ? Channels.newChannel(salidaEstandar)
+                    : FileChannel.open(resultados, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+            CompiledGrammar compilada = CompiledGrammarFile.esBinario(gramatica)
+                    ? CompiledGrammarFile.cargar(gramatica)
+                    : GrammarFile.leer(gramatica).freeze();
+            cli = new BatchCli(compilada, numHilos, canalSalida);
+            long inicio = System.nanoTime();
+            if (palabras == null)
+                cli.leerCanal(Channels.newChannel(entrada));
+            else
+                cli.leerFichero(palabras);
+            cli.vaciar(0);
+            salidaEstandar.flush();
+            cli.informar(informe, System.nanoTime() - inicio);
+            return 0;
+        } catch (IOException | CYKAlgorithmException | ExecutionException e) {
+            informe.println("Error: " + e);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            if (cli != null)
+                cli.hilos.shutdownNow();
+            // La salida estándar no se cierra.
+            if (resultados != null && canalSalida != null) {
+                try {
+                    canalSalida.close();
+                } catch (IOException e) {
+                    informe.println("Error: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Proyecta el fichero por ventanas que acaban en un salto de línea y
+     * reparte cada ventana en bloques.
+     */
+    private void leerFichero(Path fichero) throws IOException, ExecutionException, InterruptedException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            long posicion = 0;
+            while (posicion < tamanio) {
+                long fin = Math.min(posicion + VENTANA, tamanio);
+                MappedByteBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY, posicion, fin - posicion);
+                int util = ventana.limit();
+                if (fin < tamanio) {
+                    util = ultimoSalto(ventana, 0, util) + 1;
+                    if (util == 0)
+                        throw new IOException("Línea de más de " + VENTANA + " bytes");
+                }
+                repartir(ventana, util);
+                posicion += util;
+            }
+        }
+    }
+
+    /**
+     * Lee el canal en bloques que acaban en un salto de línea.
+     */
+    private void leerCanal(ReadableByteChannel canal) throws IOException, ExecutionException, InterruptedException {
+        ByteBuffer bloque = ByteBuffer.allocate(BLOQUE);
+        while (true) {
+            int leidos = canal.read(bloque);
+            if (leidos < 0)
+                break;
+            if (bloque.hasRemaining())
+                continue;
+            int util = ultimoSalto(bloque, 0, bloque.position()) + 1;
+            if (util == 0) {
+                // Una línea más larga que el bloque: se amplía el bloque.
+                bloque = ByteBuffer.allocate(bloque.capacity() * 2).put(bloque.flip());
+                continue;
+            }
+            ByteBuffer siguiente = ByteBuffer.allocate(Math.max(BLOQUE, bloque.position() - util));
+            siguiente.put(bloque.array(), util, bloque.position() - util);
+            enviar(bloque.flip().limit(util));
+            bloque = siguiente;
+        }
+        if (bloque.position() > 0)
+            enviar(bloque.flip());
+    }
+
+    private static int ultimoSalto(ByteBuffer buffer, int desde, int hasta) {
+        for (int i = hasta - 1; i >= desde; i--) {
+            if (buffer.get(i) == '\n')
+                return i;
+        }
+        return desde - 1;
+    }
+
+    /**
+     * Divide las primeras util posiciones de la ventana en bloques de líneas
+     * completas.
+     */
+    private void repartir(ByteBuffer ventana, int util) throws IOException, ExecutionException, InterruptedException {
+        int inicio = 0;
+        while (inicio < util) {
+            int fin = Math.min(inicio + BLOQUE, util);
+            if (fin < util) {
+                int salto = ultimoSalto(ventana, inicio, fin);
+                if (salto < inicio) {
+                    salto = fin;
+                    while (salto < util - 1 && ventana.get(salto) != '\n') {
+                        salto++;
+                    }
+                }
+                fin = salto + 1;
+            }
+            enviar(ventana.slice(inicio, fin - inicio));
+            inicio = fin;
+        }
+    }
+
+    /**
+     * Encola un bloque, escribiendo antes los resultados más antiguos si hay
+     * demasiados pendientes.
+     */
+    private void enviar(ByteBuffer bloque) throws IOException, ExecutionException, InterruptedException {
+        vaciar(maximoPendientes - 1);
+        pendientes.add(hilos.submit(new Bloque(bloque)));
+    }
+
+    /**
+     * Escribe, en orden, los resultados pendientes hasta que queden como
+     * mucho los indicados.
+     */
+    private void vaciar(int maximo) throws IOException, ExecutionException, InterruptedException {
+        while (pendientes.size() > maximo) {
+            Resultado resultado = pendientes.poll().get();
+            ByteBuffer buffer = ByteBuffer.wrap(resultado.salida, 0, resultado.longitud);
+            while (buffer.hasRemaining()) {
+                salida.write(buffer);
+            }
+            latencias.sumar(resultado.latencias);
+            pertenecen += resultado.pertenecen;
+            errores += resultado.errores;
+        }
+    }
+
+    private void informar(PrintStream informe, long nanos) {
+        long total = latencias.total();
+        informe.printf("%d palabras (%d pertenecen, %d errores) en %.3f s: %.0f palabras/s%n",
+                total, pertenecen, errores, nanos / 1e9, nanos == 0 ? 0 : total * 1e9 / nanos);
+        informe.printf("Latencia por palabra (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                latencias.percentil(50) / 1e3, latencias.percentil(90) / 1e3, latencias.percentil(99) / 1e3,
+                latencias.percentil(99.9) / 1e3, latencias.maximo() / 1e3);
+    }
+
+    /**
+     * Resultados de un bloque: las líneas de salida y sus estadísticas.
+     */
+    private static final class Resultado {
+
+        private byte[] salida;
+        private int longitud;
+        private final LatencyHistogram latencias = new LatencyHistogram();
+        private long pertenecen;
+        private long errores;
+
+        Resultado(int capacidad) {
+            this.salida = new byte[capacidad];
+        }
+
+        void escribir(ByteBuffer origen, int desde, int hasta, byte[] respuesta) {
+            int necesario = longitud + (hasta - desde) + respuesta.length;
+            if (necesario > salida.length)
+                salida = Arrays.copyOf(salida, Math.max(necesario, salida.length * 2));
+            origen.get(desde, salida, longitud, hasta - desde);
+            longitud += hasta - desde;
+            System.arraycopy(respuesta, 0, salida, longitud, respuesta.length);
+            longitud += respuesta.length;
+        }
+    }
+
+    /**
+     * Tarea que comprueba las líneas de un bloque.
+     */
+    private final class Bloque implements Callable<Resultado> {
+
+        private final ByteBuffer entrada;
+
+        Bloque(ByteBuffer entrada) {
+            this.entrada = entrada;
+        }
+
+        @Override
+        public Resultado call() {
+            int n = entrada.limit();
+            Resultado resultado = new Resultado(n + n / 2 + 64);
+            int inicio = 0;
+            while (inicio < n) {
+                int fin = inicio;
+                while (fin < n && entrada.get(fin) != '\n') {
+                    fin++;
+                }
+                int finPalabra = fin;
+                if (finPalabra > inicio && entrada.get(finPalabra - 1) == '\r')
+                    finPalabra--;
+                long t0 = System.nanoTime();
+                int respuesta = comprobar(inicio, finPalabra);
+                resultado.latencias.registrar(System.nanoTime() - t0);
+                if (respuesta > 0)
+                    resultado.pertenecen++;
+                else if (respuesta < 0)
+                    resultado.errores++;
+                resultado.escribir(entrada, inicio, finPalabra,
+                        respuesta > 0 ? VERDADERO : respuesta == 0 ? FALSO : ERROR);
+                inicio = fin + 1;
+            }
+            return resultado;
+        }
+
+        /**
+         * @return 1 si la palabra pertenece al lenguaje, 0 si no y -1 si no
+         * se puede comprobar.
+         */
+        private int comprobar(int desde, int hasta) {
+            int longitud = hasta - desde;
+            if (longitud == 0)
+                return -1;
+            int[] simbolos = ChartWorkspace.actual().simbolos(longitud);
+            for (int i = 0; i < longitud; i++) {
+                byte b = entrada.get(desde + i);
+                if (b < 0)
+                    return comprobarUtf8(desde, hasta, simbolos);
+                simbolos[i] = gramatica.idTerminal((char) b);
+                if (simbolos[i] < 0)
+                    return -1;
+            }
+            return reconocer(simbolos, longitud);
+        }
+
+        private int comprobarUtf8(int desde, int hasta, int[] simbolos) {
+            byte[] bytes = new byte[hasta - desde];
+            entrada.get(desde, bytes);
+            String palabra = new String(bytes, StandardCharsets.UTF_8);
+            try {
+                gramatica.codificar(palabra, simbolos);
+            } catch (CYKAlgorithmException e) {
+                return -1;
+            }
+            return reconocer(simbolos, palabra.length());
+        }
+
+        private int reconocer(int[] simbolos, int longitud) {
+            if (!gramatica.admitePrefiltro(simbolos, 0, longitud))
+                return 0;
+            return reconocedor.reconoce(simbolos, 0, longitud) ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee una gramática en FNC de un fichero de texto con el mismo formato que
+ * devuelve {@code getGrammar}: una línea por no terminal, con sus
+ * producciones separadas por barras.
+ *
+ * <pre>
+ * # Comentario
+ * S::=AB|BC
+ * A::=BA|a
+ * </pre>
+ *
+ * Los no terminales son las cabezas de las líneas, el axioma es la cabeza de
+ * la primera línea y los terminales son los símbolos de las producciones de
+ * tipo A::=a. Se ignoran las líneas vacías y las que empiezan por '#'.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class GrammarFile {
+
+    private GrammarFile() {
+    }
+
+    /**
+     * @param fichero El fichero de la gramática, en UTF-8.
+     * @return La gramática leída.
+     * @throws IOException Si no se puede leer el fichero.
+     * @throws CYKAlgorithmException Si alguna línea no tiene el formato
+     * esperado o alguna producción no está en FNC.
+     */
+    public static CYKAlgorithm leer(Path fichero) throws IOException, CYKAlgorithmException {
+        return leer(Files.readAllLines(fichero, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param lineas Las líneas de la gramática.
+     * @return La gramática leída.
+     * @throws CYKAlgorithmException Si alguna línea no tiene el formato
+     * esperado o alguna producción no está en FNC.
+     */
+    public static CYKAlgorithm leer(List<String> lineas) throws CYKAlgorithmException {
+        List<Character> cabezas = new ArrayList<>();
+        List<String[]> producciones = new ArrayList<>();
+        for (String linea : lineas) {
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#"))
+                continue;
+            int flecha = linea.indexOf("::=");
+            if (flecha != 1)
+                throw new CYKAlgorithmException();
+            cabezas.add(linea.charAt(0));
+            producciones.add(linea.substring(flecha + 3).split("\\|", -1));
+        }
+        if (cabezas.isEmpty())
+            throw new CYKAlgorithmException();
+
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        for (char cabeza : cabezas) {
+            if (!cyk.noTerminales.contains(cabeza))
+                cyk.addNonTerminal(cabeza);
+        }
+        for (String[] partes : producciones) {
+            for (String produccion : partes) {
+                if (produccion.length() == 1 && !cyk.terminales.contains(produccion.charAt(0)))
+                    cyk.addTerminal(produccion.charAt(0));
+            }
+        }
+        cyk.setStartSymbol(cabezas.get(0));
+        for (int i = 0; i < cabezas.size(); i++) {
+            for (String produccion : producciones.get(i)) {
+                cyk.addProduction(cabezas.get(i), produccion);
+            }
+        }
+        return cyk;
+    }
+}
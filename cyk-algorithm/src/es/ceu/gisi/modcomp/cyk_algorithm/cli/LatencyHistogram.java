@@ -0,0 +1,100 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+/**
+ * Histograma de latencias en nanosegundos con error relativo acotado: cada
+ * potencia de dos se divide en {@value #SUBCUBETAS} cubetas iguales, de modo
+ * que los percentiles se obtienen con un error menor del 100 / SUBCUBETAS %
+ * y registrar un valor cuesta un par de operaciones de bits.
+ *
+ * Un histograma no es seguro para su uso desde varios hilos; cada hilo usa el
+ * suyo y al final se suman con {@link #sumar(LatencyHistogram)}.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public final class LatencyHistogram {
+
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+    private final long[] cuentas = new long[64 * SUBCUBETAS];
+    private long total;
+    private long maximo;
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos La latencia en nanosegundos.
+     */
+    public void registrar(long nanos) {
+        cuentas[cubeta(Math.max(0, nanos))]++;
+        total++;
+        maximo = Math.max(maximo, nanos);
+    }
+
+    /**
+     * Valores menores que SUBCUBETAS tienen una cubeta cada uno; a partir de
+     * ahí, cada potencia de dos se reparte entre SUBCUBETAS cubetas.
+     */
+    private static int cubeta(long valor) {
+        if (valor < SUBCUBETAS)
+            return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+    }
+
+    /**
+     * @return El mayor valor que cae en la cubeta indicada.
+     */
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS)
+            return cubeta;
+        int exponente = cubeta / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long sub = cubeta % SUBCUBETAS;
+        long inicio = (1L << exponente) + (sub << (exponente - BITS_SUBCUBETA));
+        return inicio + (1L << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+
+    /**
+     * Añade a este histograma los valores registrados en otro.
+     */
+    public void sumar(LatencyHistogram otro) {
+        for (int i = 0; i < cuentas.length; i++) {
+            cuentas[i] += otro.cuentas[i];
+        }
+        total += otro.total;
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    /**
+     * @return El número de valores registrados.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return La mayor latencia registrada.
+     */
+    public long maximo() {
+        return maximo;
+    }
+
+    /**
+     * @param percentil Percentil entre 0 y 100.
+     * @return Una cota superior del valor del percentil, o 0 si no hay
+     * valores.
+     */
+    public long percentil(double percentil) {
+        if (total == 0)
+            return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100));
+        long acumulado = 0;
+        for (int i = 0; i < cuentas.length; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo)
+                return Math.min(limiteSuperior(i), maximo);
+        }
+        return maximo;
+    }
+}
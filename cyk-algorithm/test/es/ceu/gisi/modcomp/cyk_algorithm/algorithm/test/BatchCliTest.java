@@ -0,0 +1,105 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.cli.BatchCli;
+import es.ceu.gisi.modcomp.cyk_algorithm.cli.GrammarFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea el programa de línea de comandos que comprueba ficheros de
+ * palabras.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class BatchCliTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private Path directorio;
+    private Path gramatica;
+
+    @Before
+    public void crearGramatica() throws IOException {
+        directorio = Files.createTempDirectory("cyk");
+        gramatica = directorio.resolve("gramatica.txt");
+        Files.write(gramatica, Arrays.asList(
+                "# Gramática de los ejemplos de BasicTest",
+                "S::=AB|BC",
+                "A::=BA|a",
+                "B::=CC|b",
+                "C::=AB|a"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void borrarFicheros() throws IOException {
+        for (Path p : Files.newDirectoryStream(directorio)) {
+            Files.delete(p);
+        }
+        Files.delete(directorio);
+    }
+
+    @Test
+    public void comprobarFicheroGramatica() throws IOException, CYKAlgorithmException {
+        CYKAlgorithm cyk = GrammarFile.leer(gramatica);
+        assertEquals('S', (char) cyk.axioma);
+        assertEquals(new HashSet<>(Arrays.asList("AB", "BC")), cyk.producciones.get('S'));
+        assertTrue(cyk.isDerived("baaba"));
+    }
+
+    @Test
+    public void comprobarFicheroGramaticaNoValido() throws CYKAlgorithmException {
+        thrown.expect(CYKAlgorithmException.class);
+        GrammarFile.leer(Arrays.asList("S::=ABC"));
+    }
+
+    @Test
+    public void comprobarFicheroPalabras() throws IOException {
+        Path palabras = directorio.resolve("palabras.txt");
+        Path salida = directorio.resolve("salida.txt");
+        Files.write(palabras, "baaba\nbbb\r\nabx\n\nab".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream informe = new ByteArrayOutputStream();
+
+        int codigo = BatchCli.ejecutar(new String[]{"-g", gramatica.toString(), "-i", palabras.toString(),
+            "-o", salida.toString(), "-t", "2"}, System.in, System.out, new PrintStream(informe, true));
+
+        assertEquals(0, codigo);
+        assertEquals("baaba\ttrue\nbbb\tfalse\nabx\terror\n\terror\nab\ttrue\n",
+                new String(Files.readAllBytes(salida), StandardCharsets.UTF_8));
+        assertTrue(informe.toString().startsWith("5 palabras (2 pertenecen, 2 errores)"));
+    }
+
+    @Test
+    public void comprobarEntradaEstandar() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ByteArrayInputStream entrada = new ByteArrayInputStream("ab\nba\n".getBytes(StandardCharsets.UTF_8));
+
+        int codigo = BatchCli.ejecutar(new String[]{"-g", gramatica.toString()}, entrada, salida,
+                new PrintStream(new ByteArrayOutputStream()));
+
+        assertEquals(0, codigo);
+        assertEquals("ab\ttrue\nba\ttrue\n", new String(salida.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void comprobarArgumentosNoValidos() {
+        assertEquals(2, BatchCli.ejecutar(new String[]{"-i"}, System.in, System.out,
+                new PrintStream(new ByteArrayOutputStream())));
+    }
+}
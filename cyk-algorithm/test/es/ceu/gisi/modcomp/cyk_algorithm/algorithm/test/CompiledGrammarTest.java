@@ -0,0 +1,727 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.VersionedGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.BitsetChart;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartFormat;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.ChartWorkspace;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.BatchResult;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.IncrementalParser;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ValiantEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ViterbiEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ViterbiParse;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest.ParseForest;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.forest.ParseTree;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.SymbolTable;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test.GrammarFixtures.gramaticaEjemplo;
+import static es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test.GrammarFixtures.palabrasAleatorias;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea la gramática compilada e inmutable que devuelve
+ * CYKAlgorithm.freeze().
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class CompiledGrammarTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarInstantaneaReutilizada() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        CompiledGrammar g1 = cyk.freeze();
+        assertSame(g1, cyk.freeze());
+
+        cyk.addTerminal('c');
+        assertNotSame(g1, cyk.freeze());
+    }
+
+    @Test
+    public void comprobarInstantaneaInmutable() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        CompiledGrammar g = cyk.freeze();
+        assertFalse(g.isDerived("bb"));
+
+        cyk.addProduction('S', "BB");
+        assertTrue(cyk.isDerived("bb"));
+        assertFalse(g.isDerived("bb"));
+
+        cyk.removeGrammar();
+        assertTrue(g.isDerived("baaba"));
+    }
+
+    @Test
+    public void comprobarTablaInstantanea() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        assertEquals(cyk.algorithmStateToString("baaba"),
+                cyk.freeze().algorithmStateToString("baaba"));
+    }
+
+    @Test
+    public void comprobarTablaEnDestino() throws CYKAlgorithmException, IOException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        StringWriter densa = new StringWriter();
+        cyk.algorithmStateToString("baaba", densa, ChartFormat.DENSE);
+        assertEquals(cyk.algorithmStateToString("baaba"), densa.toString());
+
+        StringBuilder dispersa = new StringBuilder();
+        cyk.algorithmStateToString("ba", dispersa, ChartFormat.SPARSE);
+        assertEquals("longitud\t2\n0\t0\tB\n0\t1\tAC\n1\t0\tAS\n", dispersa.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        cyk.algorithmStateToString("ba", Channels.newChannel(bytes), ChartFormat.DENSE);
+        assertEquals("[B][AC]\n[AS][-]\n", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void comprobarInstantaneaSinAxioma() throws CYKAlgorithmException {
+        thrown.expect(CYKAlgorithmException.class);
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.addProduction('S', "a");
+        cyk.freeze().isDerived("a");
+    }
+
+    @Test
+    public void comprobarInstantaneaConcurrente() throws Exception {
+        final CompiledGrammar g = gramaticaEjemplo().freeze();
+        final String[] palabras = {"baaba", "bbb", "aabab", "ab", "bababab"};
+        final boolean[] esperado = new boolean[palabras.length];
+        for (int i = 0; i < palabras.length; i++) {
+            esperado[i] = g.isDerived(palabras[i]);
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                resultados.add(hilos.submit(() -> {
+                    for (int r = 0; r < 200; r++) {
+                        for (int i = 0; i < palabras.length; i++) {
+                            if (g.isDerived(palabras[i]) != esperado[i])
+                                return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> f : resultados) {
+                assertTrue(f.get());
+            }
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    @Test
+    public void comprobarDerivacionParalela() throws CYKAlgorithmException {
+        CompiledGrammar g = gramaticaEjemplo().freeze();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String palabra : palabrasAleatorias(7, 6, 300, 300)) {
+                assertEquals(g.isDerived(palabra), g.isDerivedParallel(palabra, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void comprobarDerivacionParalelaPalabraLarga() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "SS");
+        cyk.addProduction('S', "a");
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            sb.append('a');
+        }
+        assertTrue(cyk.isDerivedParallel(sb.toString()));
+        assertTrue(cyk.isDerivedParallel("aa"));
+    }
+
+    @Test
+    public void comprobarDerivacionPorLotes() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        List<String> palabras = palabrasAleatorias(11, 500, 8);
+
+        BatchResult lote = cyk.isDerivedAll(palabras);
+        assertEquals(palabras.size(), lote.palabras());
+        assertTrue(lote.palabrasUnicas() < palabras.size());
+        for (int i = 0; i < palabras.size(); i++) {
+            assertEquals(cyk.isDerived(palabras.get(i)), lote.isDerived(i));
+        }
+    }
+
+    @Test
+    public void comprobarDerivacionPorLotesNoValido() throws CYKAlgorithmException {
+        thrown.expect(CYKAlgorithmException.class);
+        gramaticaEjemplo().isDerivedAll(Arrays.asList("baaba", "bacb"));
+    }
+
+    @Test
+    public void comprobarSesionIncremental() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        IncrementalParser sesion = cyk.newSession();
+        assertFalse(sesion.isCurrentlyDerived());
+
+        String palabra = "baababbaabab";
+        for (int i = 0; i < palabra.length(); i++) {
+            sesion.append(palabra.charAt(i));
+            assertEquals(i + 1, sesion.length());
+            assertEquals(cyk.isDerived(palabra.substring(0, i + 1)), sesion.isCurrentlyDerived());
+        }
+
+        sesion.reset();
+        sesion.append('b');
+        sesion.append('a');
+        assertEquals(cyk.isDerived("ba"), sesion.isCurrentlyDerived());
+    }
+
+    @Test
+    public void comprobarSesionIncrementalNoValido() throws CYKAlgorithmException {
+        thrown.expect(CYKAlgorithmException.class);
+        IncrementalParser sesion = gramaticaEjemplo().newSession();
+        sesion.append('b');
+        sesion.append('c');
+    }
+
+    @Test
+    public void comprobarVersionesDeGramatica() throws Exception {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "AB");
+        cyk.addProduction('A', "a");
+        cyk.addProduction('B', "b");
+        VersionedGrammar versiones = new VersionedGrammar(cyk);
+        VersionedGrammar.Version primera = versiones.actual();
+        assertEquals(1, versiones.version());
+
+        VersionedGrammar.Version segunda = versiones.editar(g -> g.addProduction('S', "BA"));
+        assertEquals(2, segunda.numero());
+        assertSame(segunda, versiones.actual());
+        // La versión anterior y la gramática original no cambian.
+        assertFalse(primera.isDerived("ba"));
+        assertTrue(segunda.isDerived("ba"));
+        assertFalse(cyk.isDerived("ba"));
+
+        // Una modificación no válida no publica ninguna versión.
+        try {
+            versiones.editar(g -> {
+                g.addProduction('S', "SA");
+                g.addProduction('S', "AB");
+            });
+        } catch (CYKAlgorithmException e) {
+            // Esperada: S::=AB ya existe.
+        }
+        assertSame(segunda, versiones.actual());
+
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                resultados.add(hilos.submit(() -> {
+                    long anterior = 0;
+                    for (int r = 0; r < 2000; r++) {
+                        VersionedGrammar.Version v = versiones.actual();
+                        // Las versiones pares aceptan "ba" y las impares no.
+                        if (v.numero() < anterior || v.isDerived("ba") != (v.numero() % 2 == 0))
+                            return false;
+                        anterior = v.numero();
+                    }
+                    return true;
+                }));
+            }
+            for (int r = 0; r < 100; r++) {
+                versiones.reemplazar(cyk);
+                versiones.editar(g -> g.addProduction('S', "BA"));
+            }
+            for (Future<Boolean> resultado : resultados) {
+                assertTrue(resultado.get());
+            }
+        } finally {
+            hilos.shutdown();
+        }
+        assertEquals(202, versiones.version());
+    }
+
+    @Test
+    public void comprobarPrefiltro() throws CYKAlgorithmException {
+        // S::=AB, A::=a, B::=b|BB: el lenguaje es a(b)+.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "AB");
+        cyk.addProduction('A', "a");
+        cyk.addProduction('B', "b");
+        cyk.addProduction('B', "BB");
+
+        CompiledGrammar g = cyk.freeze();
+        assertTrue(g.isDerived("abbb"));
+        assertFalse(g.isDerived("a"));
+        assertFalse(g.isDerived("babb"));
+        assertFalse(g.isDerived("abba"));
+        assertFalse(g.isDerived("abab"));
+        assertEquals(5, g.palabrasFiltradas());
+        assertEquals(4, g.palabrasRechazadas());
+    }
+
+    @Test
+    public void comprobarDerivacionSinReservas() throws CYKAlgorithmException {
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) mx;
+        Assume.assumeTrue(hilos.isThreadAllocatedMemorySupported());
+        hilos.setThreadAllocatedMemoryEnabled(true);
+
+        CompiledGrammar g = gramaticaEjemplo().freeze();
+        String[] palabras = {"bbababa", "baaba", "ababab", "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb"};
+        boolean[] esperadas = new boolean[palabras.length];
+        // Calentamiento: el espacio de trabajo crece hasta la palabra más larga.
+        for (int i = 0; i < 2000; i++) {
+            for (int p = 0; p < palabras.length; p++) {
+                esperadas[p] = g.isDerived(palabras[p]);
+            }
+        }
+        long hilo = Thread.currentThread().getId();
+        long antes = hilos.getThreadAllocatedBytes(hilo);
+        int aciertos = 0;
+        for (int i = 0; i < 1000; i++) {
+            for (int p = 0; p < palabras.length; p++) {
+                if (g.isDerived(palabras[p]) == esperadas[p])
+                    aciertos++;
+            }
+        }
+        long reservado = hilos.getThreadAllocatedBytes(hilo) - antes;
+        assertEquals(1000 * palabras.length, aciertos);
+        assertTrue("Bytes reservados: " + reservado, reservado < 1024);
+    }
+
+    @Test
+    public void comprobarEspacioDeTrabajoAcotado() {
+        ChartWorkspace espacio = ChartWorkspace.actual();
+        BitsetChart habitual = espacio.tabla(100, 1);
+        // Una palabra muy larga recibe una tabla propia y no agranda la del hilo.
+        BitsetChart grande = espacio.tabla(5000, 1);
+        assertNotSame(habitual, grande);
+        assertSame(habitual, espacio.tabla(100, 1));
+        assertTrue(habitual.celdas().length <= ChartWorkspace.CELDAS_MAXIMAS);
+        // Al crecer no se duplica por encima del máximo.
+        BitsetChart propia = new BitsetChart(1095, 1);
+        propia.preparar(1200, 1, ChartWorkspace.CELDAS_MAXIMAS);
+        assertEquals(ChartWorkspace.CELDAS_MAXIMAS, propia.celdas().length);
+        assertTrue(espacio.simbolos(1 << 20) != espacio.simbolos(1 << 20));
+    }
+
+    @Test
+    public void comprobarBosque() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "SS");
+        cyk.addProduction('S', "a");
+
+        // Los árboles de a^n son los números de Catalan C(n - 1).
+        ParseForest bosque = cyk.parse("aaaaaa");
+        assertTrue(bosque.isDerived());
+        assertEquals(BigInteger.valueOf(42), bosque.countTrees());
+        Set<String> arboles = new HashSet<>();
+        Iterator<ParseTree> it = bosque.trees();
+        while (it.hasNext()) {
+            ParseTree arbol = it.next();
+            assertEquals('S', arbol.simbolo());
+            assertEquals(6, arbol.longitud());
+            arboles.add(arbol.toString());
+        }
+        assertEquals(42, arboles.size());
+
+        // Los primeros árboles se obtienen sin recorrer los demás.
+        ParseForest grande = cyk.parse(String.join("", Collections.nCopies(200, "a")));
+        assertTrue(grande.countTrees().bitLength() > 300);
+        Iterator<ParseTree> primeros = grande.trees();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, primeros.next().longitud());
+        }
+
+        assertEquals("(S (A a) (B b))", gramaticaEjemplo().parse("ab").trees().next().toString());
+        assertFalse(gramaticaEjemplo().parse("bb").trees().hasNext());
+    }
+
+    @Test
+    public void comprobarAnalisisMasProbable() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addNonTerminal('C');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "AB", 0.3);
+        cyk.addProduction('S', "CB", 0.7);
+        cyk.addProduction('A', "a", 1.0);
+        cyk.addProduction('C', "a", 0.5);
+        cyk.addProduction('B', "b");
+
+        ViterbiParse analisis = cyk.mostLikelyParse("ab");
+        assertTrue(analisis.isDerived());
+        assertEquals(0.35, analisis.probabilidad(), 1e-12);
+        assertEquals("(S (C a) (B b))", analisis.mejorArbol().toString());
+        assertTrue(cyk.isDerived("ab", new ViterbiEngine()));
+        assertFalse(cyk.mostLikelyParse("ba").isDerived());
+        assertEquals(0.0, cyk.mostLikelyParse("ba").probabilidad(), 0.0);
+
+        // 40000 símbolos y 4 no terminales: más de 2^31 posiciones.
+        int[] larga = new int[40000];
+        thrown.expect(CYKAlgorithmException.class);
+        new ViterbiEngine().analizar(cyk.freeze(), larga, 0, larga.length);
+    }
+
+    @Test
+    public void comprobarProbabilidadNoValida() throws CYKAlgorithmException {
+        thrown.expect(CYKAlgorithmException.class);
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.addProduction('S', "a", 1.5);
+    }
+
+    @Test
+    public void comprobarMetricasDeAnalisis() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        ParseMetrics metricas = new ParseMetrics();
+        cyk.setParseListener(metricas);
+        assertTrue(cyk.isDerived("baaba"));
+        assertFalse(cyk.isDerived("aaaaaa"));
+        cyk.setParseListener(null);
+        cyk.isDerived("bbababa");
+
+        assertEquals(2, metricas.palabras());
+        assertEquals(1, metricas.derivadas());
+        // n(n+1)/2 celdas y (n - i + 1)(i - 1) combinaciones por fila i.
+        assertEquals(15 + 21, metricas.celdas());
+        assertEquals(20 + 35, metricas.combinaciones());
+        assertTrue(metricas.celdasNoVacias() > 0 && metricas.celdasNoVacias() <= metricas.celdas());
+        assertTrue(metricas.consultas() >= 5 + 6);
+        assertTrue(metricas.nanos() >= metricas.nanosPorLongitud(6));
+    }
+
+    @Test
+    public void comprobarEventosDeFlightRecorder() throws CYKAlgorithmException, IOException {
+        Path fichero = Files.createTempFile("cyk", ".jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable("es.ceu.gisi.modcomp.cyk.Parse");
+            grabacion.enable("es.ceu.gisi.modcomp.cyk.GrammarCompilation");
+            grabacion.start();
+            CYKAlgorithm cyk = gramaticaEjemplo();
+            cyk.isDerived("baaba");
+            cyk.isDerived("baaba", new ValiantEngine());
+            grabacion.stop();
+            grabacion.dump(fichero);
+        }
+        List<RecordedEvent> analisis = new ArrayList<>();
+        int compilaciones = 0;
+        for (RecordedEvent evento : RecordingFile.readAllEvents(fichero)) {
+            String nombre = evento.getEventType().getName();
+            if (nombre.equals("es.ceu.gisi.modcomp.cyk.Parse"))
+                analisis.add(evento);
+            else if (nombre.equals("es.ceu.gisi.modcomp.cyk.GrammarCompilation")) {
+                compilaciones++;
+                assertEquals(4, evento.getInt("noTerminales"));
+                assertEquals(5, evento.getInt("reglasBinarias"));
+                assertEquals(3, evento.getInt("reglasTerminales"));
+            }
+        }
+        Files.delete(fichero);
+        assertEquals(1, compilaciones);
+        assertEquals(2, analisis.size());
+        RecordedEvent cyk = analisis.get(0).getString("motor").equals("cyk") ? analisis.get(0) : analisis.get(1);
+        assertEquals(5, cyk.getInt("longitud"));
+        assertTrue(cyk.getBoolean("derivada"));
+        assertTrue(cyk.getDouble("densidad") > 0 && cyk.getDouble("densidad") <= 1);
+    }
+
+    @Test
+    public void comprobarProduccionesGenerales() throws CYKAlgorithmException {
+        // S::=aSb|ε|T, T::=c: a^n b^n y a^n c b^n.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('T');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+        cyk.addTerminal('c');
+        cyk.setStartSymbol('S');
+        cyk.addGeneralProduction('S', "aSb");
+        cyk.addGeneralProduction('S', "");
+        cyk.addGeneralProduction('S', "T");
+        cyk.addGeneralProduction('T', "c");
+
+        assertTrue(cyk.derivesEmptyWord());
+        assertFalse(cyk.freeze().esFNC());
+        assertTrue(cyk.isDerived("ab"));
+        assertTrue(cyk.isDerived("aaabbb"));
+        assertTrue(cyk.isDerived("c"));
+        assertTrue(cyk.isDerived("aacbb"));
+        assertFalse(cyk.isDerived("aab"));
+        assertFalse(cyk.isDerived("acbb"));
+        assertFalse(cyk.isDerived("cc"));
+
+        // Los no terminales auxiliares no se muestran.
+        String tabla = cyk.algorithmStateToString("acb");
+        assertEquals("[-][ST][-]\n[-][-][-]\n[S][-][-]\n", tabla);
+    }
+
+    @Test
+    public void comprobarProduccionesLargas() throws CYKAlgorithmException {
+        // 100 producciones S::=w de 62 terminales necesitan unos 6000
+        // auxiliares, demasiados para una tabla de n * n pares.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+        cyk.setStartSymbol('S');
+        List<String> producciones = palabrasAleatorias(11, 100, 62, 62);
+        for (String produccion : producciones) {
+            cyk.addGeneralProduction('S', produccion);
+        }
+
+        CompiledGrammar gramatica = cyk.freeze();
+        assertTrue(gramatica.numNoTerminales() > 5000);
+        for (String produccion : producciones.subList(0, 10)) {
+            assertTrue(gramatica.isDerived(produccion));
+            String cambiada = (produccion.charAt(0) == 'a' ? 'b' : 'a') + produccion.substring(1);
+            assertEquals(producciones.contains(cambiada), gramatica.isDerived(cambiada));
+        }
+    }
+
+    @Test
+    public void comprobarProduccionGeneralNoValida() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.addGeneralProduction('S', "aSa");
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.addGeneralProduction('S', "aXa");
+    }
+
+    @Test
+    public void comprobarBosqueSinFNC() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addTerminal('a');
+        cyk.setStartSymbol('S');
+        cyk.addGeneralProduction('S', "aS");
+        cyk.addGeneralProduction('S', "a");
+        assertTrue(cyk.isDerived("aaa"));
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.parse("aaa");
+    }
+
+    @Test
+    public void comprobarPalabrasDeIdentificadores() throws CYKAlgorithmException {
+        // E::=EX|n, X::=PE, P::=+ con terminales con nombre.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('E');
+        cyk.addNonTerminal('X');
+        cyk.addNonTerminal('P');
+        cyk.setStartSymbol('E');
+        int num = cyk.addTerminal("NUM");
+        int mas = cyk.addTerminal("MAS");
+        cyk.addProduction('E', "EX");
+        cyk.addProduction('E', num);
+        cyk.addProduction('X', "PE");
+        cyk.addProduction('P', mas);
+
+        // Fragmentos de un buffer de tokens mayor.
+        int[] tokens = {mas, num, mas, num, mas, num, num};
+        assertTrue(cyk.isDerived(tokens, 1, 5));
+        assertTrue(cyk.isDerived(tokens, 1, 1));
+        assertFalse(cyk.isDerived(tokens, 0, 4));
+        assertFalse(cyk.isDerived(tokens, 1, 6));
+
+        IntBuffer buffer = IntBuffer.wrap(tokens, 3, 3);
+        assertTrue(cyk.isDerived(buffer));
+        assertEquals(3, buffer.position());
+        assertTrue(cyk.isDerived(IntBuffer.allocate(3).put(num).put(mas).put(num).flip()));
+
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.isDerived(new int[]{num, 57}, 0, 2);
+    }
+
+    @Test
+    public void comprobarFragmentoFueraDePalabra() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.setStartSymbol('S');
+        int num = cyk.addTerminal("NUM");
+        cyk.addProduction('S', num);
+        int[] tokens = {num, num, num};
+        int[][] fragmentos = {{-1, 2}, {2, 2}, {0, 4}, {1, Integer.MAX_VALUE}, {0, -1}};
+        for (int[] fragmento : fragmentos) {
+            try {
+                cyk.freeze().codificar(tokens, fragmento[0], fragmento[1], cyk.getSymbolTable(), new int[4]);
+                throw new AssertionError(Arrays.toString(fragmento));
+            } catch (CYKAlgorithmException e) {
+                // Esperada: el fragmento no cabe en tokens.
+            }
+        }
+        assertTrue(cyk.isDerived(tokens, 2, 1));
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.isDerived(tokens, 2, 2);
+    }
+
+    @Test
+    public void comprobarTerminalConNombreRepetido() throws CYKAlgorithmException {
+        // Un nombre de una letra minúscula es el terminal de esa letra.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.setStartSymbol('S');
+        int a = cyk.addTerminal("a");
+        assertEquals('a', cyk.getSymbolTable().caracter(a));
+        cyk.addProduction('S', "a");
+        assertTrue(cyk.isDerived("a"));
+        assertTrue(cyk.isDerived(new int[]{a}, 0, 1));
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.addTerminal('a');
+    }
+
+    @Test
+    public void comprobarMuchosTerminales() throws CYKAlgorithmException {
+        // S::=SS|t para 5000 terminales distintos.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "SS");
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, cyk.addTerminal("t" + i));
+            cyk.addProduction('S', i);
+        }
+        assertEquals(5000, cyk.getSymbolTable().size());
+        assertEquals("t4321", cyk.getSymbolTable().nombre(4321));
+
+        Random r = new Random(5);
+        int[] palabra = new int[40];
+        for (int i = 0; i < palabra.length; i++) {
+            palabra[i] = r.nextInt(5000);
+        }
+        assertTrue(cyk.isDerived(palabra, 0, palabra.length));
+
+        // Los caracteres libres se acaban en MAXIMO_CON_NOMBRE terminales.
+        SymbolTable tabla = new SymbolTable();
+        for (int i = 0; i < SymbolTable.MAXIMO_CON_NOMBRE; i++) {
+            assertEquals(i, tabla.registrar("t" + i));
+        }
+        assertEquals(-1, tabla.registrar("otro"));
+        assertEquals(SymbolTable.MAXIMO_CON_NOMBRE, tabla.registrar("z"));
+    }
+
+    @Test
+    public void comprobarGramaticaBinaria() throws CYKAlgorithmException, IOException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addNonTerminal('C');
+        cyk.addTerminal('a');
+        int b = cyk.addTerminal("BE");
+        cyk.setStartSymbol('S');
+        cyk.addProduction('S', "AB", 0.3);
+        cyk.addProduction('S', "CB", 0.7);
+        cyk.addProduction('A', "a", 1.0);
+        cyk.addProduction('C', "a", 0.5);
+        cyk.addProduction('B', b);
+
+        Path fichero = Files.createTempFile("cyk", ".cykg");
+        try {
+            CompiledGrammarFile.guardar(cyk.freeze(), cyk.getSymbolTable(), fichero);
+            assertTrue(CompiledGrammarFile.esBinario(fichero));
+            SymbolTable tabla = new SymbolTable();
+            CompiledGrammar cargada = CompiledGrammarFile.cargar(fichero, tabla);
+            assertEquals(cyk.getSymbolTable().size(), tabla.size());
+            assertEquals(b, tabla.id("BE"));
+            assertTrue(cargada.isDerived(new int[]{tabla.id('a'), b}, 0, 2, tabla));
+            assertFalse(cargada.isDerived(new int[]{b, tabla.id('a')}, 0, 2, tabla));
+            String ab = "a" + tabla.caracter(b);
+            assertEquals(0.35, new ViterbiEngine().analizar(cargada, ab).probabilidad(), 1e-12);
+
+            // Las gramáticas generales conservan su forma normal binaria.
+            CYKAlgorithm general = new CYKAlgorithm();
+            general.addNonTerminal('S');
+            general.addTerminal('a');
+            general.addTerminal('b');
+            general.setStartSymbol('S');
+            general.addGeneralProduction('S', "aSb");
+            general.addGeneralProduction('S', "");
+            CompiledGrammarFile.guardar(general.freeze(), null, fichero);
+            cargada = CompiledGrammarFile.cargar(fichero);
+            assertFalse(cargada.esFNC());
+            assertTrue(cargada.derivesEmptyWord());
+            assertTrue(cargada.isDerived("aaabbb"));
+            assertFalse(cargada.isDerived("aabbb"));
+
+            // Un byte alterado invalida el CRC.
+            try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.wrap(new byte[]{0x7f}), 50);
+            }
+            thrown.expect(CYKAlgorithmException.class);
+            CompiledGrammarFile.cargar(fichero);
+        } finally {
+            Files.delete(fichero);
+        }
+    }
+}
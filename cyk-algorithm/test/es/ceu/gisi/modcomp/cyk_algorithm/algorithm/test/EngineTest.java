@@ -0,0 +1,272 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernel;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.chart.SplitKernels;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.AgendaCYKEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.CachedCYKEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Engines;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.MappedCYKEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ParserEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.Recognizer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.SequentialCYKEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.SpanBitvectorEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.engine.ValiantEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.grammar.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.metrics.ParseMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import static es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test.GrammarFixtures.gramaticaEjemplo;
+import static es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test.GrammarFixtures.palabrasAleatorias;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea los motores de análisis de {@link Engines}, comparando las
+ * palabras que acepta cada uno con las que acepta el análisis CYK habitual.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+public class EngineTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    /**
+     * Comprueba que el motor acepta las mismas palabras que la referencia.
+     *
+     * @param referencia Motor de referencia, o null para el análisis CYK
+     * habitual de la gramática.
+     * @return El número de palabras aceptadas.
+     */
+    private static int assertMismasPalabras(CYKAlgorithm cyk, ParserEngine referencia, ParserEngine motor,
+            List<String> palabras) throws CYKAlgorithmException {
+        int aceptadas = 0;
+        for (String palabra : palabras) {
+            boolean esperado = referencia == null ? cyk.isDerived(palabra) : cyk.isDerived(palabra, referencia);
+            assertEquals(palabra, esperado, cyk.isDerived(palabra, motor));
+            if (esperado)
+                aceptadas++;
+        }
+        return aceptadas;
+    }
+
+    @Test
+    public void comprobarDerivacionValiant() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        for (List<String> palabras : Arrays.asList(palabrasAleatorias(5, 30, 12), palabrasAleatorias(6, 10, 150))) {
+            assertMismasPalabras(cyk, null, new ValiantEngine(), palabras);
+            assertMismasPalabras(cyk, null, new ValiantEngine(false), palabras);
+        }
+        assertTrue(cyk.isDerived("baaba", new ValiantEngine()));
+    }
+
+    @Test
+    public void comprobarDerivacionValiantCuatroRusos() throws CYKAlgorithmException {
+        // Con más de 1024 símbolos hay bloques de 512 que usan los cuatro
+        // rusos. La tabla CYK secuencial es demasiado lenta como referencia a
+        // esta longitud; se compara con los vectores de posiciones.
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        List<String> palabras = palabrasAleatorias(3, 4, 1025, 1524);
+        SpanBitvectorEngine vectores = new SpanBitvectorEngine();
+        assertTrue(assertMismasPalabras(cyk, vectores, new ValiantEngine(), palabras) > 0);
+        assertMismasPalabras(cyk, vectores, new ValiantEngine(false), palabras);
+    }
+
+    @Test
+    public void comprobarDerivacionAgenda() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        assertMismasPalabras(cyk, null, new AgendaCYKEngine(), palabrasAleatorias(11, 50, 12));
+        assertMismasPalabras(cyk, null, new AgendaCYKEngine(), palabrasAleatorias(12, 10, 150));
+        assertTrue(cyk.isDerived("baaba", Engines.porNombre("cyk-agenda")));
+    }
+
+    @Test
+    public void comprobarDerivacionVectores() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        assertMismasPalabras(cyk, null, new SpanBitvectorEngine(), palabrasAleatorias(13, 50, 12));
+        assertMismasPalabras(cyk, null, new SpanBitvectorEngine(), palabrasAleatorias(14, 10, 300));
+        assertTrue(cyk.isDerived("baaba", new SpanBitvectorEngine()));
+        assertEquals("cyk-vectores", Engines.elegir(cyk.freeze(), 1000));
+        assertEquals("cyk-paralelo", Engines.elegir(cyk.freeze(), 100000));
+    }
+
+    @Test
+    public void comprobarKernelVectorial() throws CYKAlgorithmException {
+        SplitKernel vectorial = SplitKernels.vectorial();
+        Assume.assumeTrue(vectorial != null);
+        SplitKernel escalar = SplitKernels.escalar();
+        Random aleatorio = new Random(17);
+        for (int r = 0; r < 2000; r++) {
+            int palabras = aleatorio.nextInt(40);
+            long[] a = new long[palabras + 5];
+            long[] b = new long[palabras + 5];
+            for (int w = 0; w < a.length; w++) {
+                // Pocos bits para que haya tramos sin intersección.
+                a[w] = aleatorio.nextLong() & aleatorio.nextLong() & aleatorio.nextLong() & aleatorio.nextLong();
+                b[w] = aleatorio.nextLong() & aleatorio.nextLong() & aleatorio.nextLong() & aleatorio.nextLong();
+            }
+            int offA = aleatorio.nextInt(6);
+            int offB = aleatorio.nextInt(6);
+            int n = Math.min(palabras, Math.min(a.length - offA, b.length - offB));
+            assertEquals(escalar.interseca(a, offA, b, offB, n), vectorial.interseca(a, offA, b, offB, n));
+            long[] destinoEscalar = b.clone();
+            long[] destinoVectorial = b.clone();
+            escalar.acumular(a, offA, destinoEscalar, offB, n);
+            vectorial.acumular(a, offA, destinoVectorial, offB, n);
+            assertTrue(Arrays.equals(destinoEscalar, destinoVectorial));
+        }
+
+        assertMismasPalabras(gramaticaEjemplo(), new SpanBitvectorEngine(escalar),
+                new SpanBitvectorEngine(vectorial), palabrasAleatorias(18, 20, 500));
+    }
+
+    @Test
+    public void comprobarDerivacionEarley() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        ParserEngine earley = Engines.porNombre("earley");
+        assertMismasPalabras(cyk, null, earley, palabrasAleatorias(7, 50, 12));
+        assertMismasPalabras(cyk, null, earley, palabrasAleatorias(8, 10, 150));
+        assertTrue(cyk.isDerived("baaba", earley));
+
+        // Mensajes M::=kvp repetidos: Earley a partir de 64 símbolos.
+        CYKAlgorithm protocolo = new CYKAlgorithm();
+        protocolo.addNonTerminal('S');
+        protocolo.addNonTerminal('M');
+        protocolo.addTerminal('k');
+        protocolo.addTerminal('v');
+        protocolo.addTerminal('p');
+        protocolo.setStartSymbol('S');
+        protocolo.addGeneralProduction('S', "MS");
+        protocolo.addGeneralProduction('S', "M");
+        protocolo.addGeneralProduction('M', "kvp");
+        assertEquals("earley", Engines.elegir(protocolo.freeze(), 300));
+        assertEquals("cyk", Engines.elegir(protocolo.freeze(), 9));
+        protocolo.setParserEngine(Engines.auto());
+        String mensajes = String.join("", Collections.nCopies(100, "kvp"));
+        assertTrue(protocolo.isDerived(mensajes));
+        assertFalse(protocolo.isDerived(mensajes + "k"));
+        assertTrue(protocolo.isDerived("kvpkvp"));
+    }
+
+    @Test
+    public void comprobarMotoresPorNombre() throws CYKAlgorithmException {
+        // Cada motor del catálogo se encuentra por su nombre.
+        for (ParserEngine motor : Engines.disponibles()) {
+            ParserEngine porNombre = Engines.porNombre(motor.nombre());
+            assertEquals(motor.getClass(), porNombre.getClass());
+            assertNotSame(motor, porNombre);
+        }
+        thrown.expect(CYKAlgorithmException.class);
+        Engines.porNombre("lr");
+    }
+
+    @Test
+    public void comprobarReconocedorReutilizado() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        int[] preparados = new int[1];
+        ParserEngine cuenta = new ParserEngine() {
+            @Override
+            public String nombre() {
+                return "cuenta";
+            }
+
+            @Override
+            public Recognizer reconocedor(CompiledGrammar gramatica) throws CYKAlgorithmException {
+                preparados[0]++;
+                return new SequentialCYKEngine().reconocedor(gramatica);
+            }
+        };
+        cyk.setParserEngine(cuenta);
+        assertTrue(cyk.isDerived("baaba"));
+        assertFalse(cyk.isDerived("bb"));
+        assertEquals(1, preparados[0]);
+        // Otra gramática prepara otro reconocedor.
+        cyk.addProduction('S', "SS");
+        assertTrue(cyk.isDerived("baaba"));
+        assertEquals(2, preparados[0]);
+    }
+
+    @Test
+    public void comprobarDerivacionEnDisco() throws CYKAlgorithmException, IOException {
+        Path directorio = Files.createTempDirectory("cyk");
+        assertMismasPalabras(gramaticaEjemplo(), null, new MappedCYKEngine(directorio),
+                palabrasAleatorias(7, 200, 40));
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            assertEquals(0, ficheros.count());
+        }
+        Files.delete(directorio);
+    }
+
+    @Test
+    public void comprobarDerivacionConCache() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        // Caché pequeña para que se descarten entradas.
+        ParseMetrics conCache = new ParseMetrics();
+        ParseMetrics sinCache = new ParseMetrics();
+        CachedCYKEngine cache = new CachedCYKEngine(2000, 4, conCache);
+        CachedCYKEngine vacia = new CachedCYKEngine(0, 4, sinCache);
+        String comun = "bbababaabab";
+        List<String> prefijos = palabrasAleatorias(17, 300, 0, 5);
+        List<String> sufijos = palabrasAleatorias(18, 300, 0, 5);
+        for (int i = 0; i < prefijos.size(); i++) {
+            String palabra = prefijos.get(i) + comun + sufijos.get(i);
+            assertEquals(palabra, cyk.isDerived(palabra), cyk.isDerived(palabra, cache));
+            assertEquals(palabra, cyk.isDerived(palabra), cyk.isDerived(palabra, vacia));
+        }
+        assertTrue(cache.cache().aciertos() > 0);
+        assertTrue(cache.cache().ocupados() <= 2000);
+        assertEquals(0, vacia.cache().aciertos());
+        // Las celdas de la subcadena común se copian en lugar de calcularse.
+        assertTrue(cache.cache().celdasReutilizadas() > 300 * 10);
+        assertTrue(conCache.combinaciones() * 2 < sinCache.combinaciones());
+
+        // Una palabra ya analizada no calcula ninguna celda.
+        cyk.isDerived(comun + "a", cache);
+        long antes = conCache.combinaciones();
+        assertEquals(cyk.isDerived(comun + "a"), cyk.isDerived(comun + "a", cache));
+        assertEquals(antes, conCache.combinaciones());
+
+        // Otra gramática descarta la caché de la anterior.
+        cyk.addProduction('S', "SS");
+        assertEquals(cyk.isDerived(comun + comun), cyk.isDerived(comun + comun, cache));
+        assertEquals(0, cache.cache().aciertos());
+    }
+
+    @Test
+    public void comprobarCacheDescartaNoUsadas() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = gramaticaEjemplo();
+        ParseMetrics metricas = new ParseMetrics();
+        // Sitio para dos tablas de 8 símbolos, de 36 celdas de una palabra.
+        // Las palabras no tienen subcadenas de 4 símbolos en común.
+        CachedCYKEngine cache = new CachedCYKEngine(72, 4, metricas);
+        cyk.isDerived("aabbabaa", cache);
+        cyk.isDerived("bbbaaaab", cache);
+        cyk.isDerived("aabbabaa", cache);
+        assertTrue(cache.cache().aciertos() > 0);
+        assertEquals(2, cache.cache().entradas());
+
+        // La tercera palabra descarta la que no se ha vuelto a usar, aunque
+        // sea la más reciente de las dos.
+        cyk.isDerived("aababbbb", cache);
+        assertEquals(2, cache.cache().entradas());
+        long antes = metricas.combinaciones();
+        cyk.isDerived("aabbabaa", cache);
+        assertEquals(antes, metricas.combinaciones());
+        cyk.isDerived("bbbaaaab", cache);
+        assertTrue(metricas.combinaciones() > antes);
+    }
+}
@@ -0,0 +1,71 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gramática y palabras de ejemplo compartidas por los tests.
+ *
+ * @author Daniel Gomez Obraztsov
+ */
+final class GrammarFixtures {
+
+    private GrammarFixtures() {
+    }
+
+    /**
+     * Gramática de los ejemplos de BasicTest: S::=AB|BC, A::=BA|a, B::=CC|b,
+     * C::=AB|a.
+     */
+    static CYKAlgorithm gramaticaEjemplo() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addNonTerminal('C');
+
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+
+        cyk.setStartSymbol('S');
+
+        cyk.addProduction('S', "AB");
+        cyk.addProduction('S', "BC");
+        cyk.addProduction('A', "BA");
+        cyk.addProduction('A', "a");
+        cyk.addProduction('B', "CC");
+        cyk.addProduction('B', "b");
+        cyk.addProduction('C', "AB");
+        cyk.addProduction('C', "a");
+        return cyk;
+    }
+
+    /**
+     * @return Palabras aleatorias de a y b, de 1 a longitudMaxima símbolos,
+     * siempre las mismas para la misma semilla.
+     */
+    static List<String> palabrasAleatorias(long semilla, int cantidad, int longitudMaxima) {
+        return palabrasAleatorias(semilla, cantidad, 1, longitudMaxima);
+    }
+
+    /**
+     * @return Palabras aleatorias de a y b, de longitudMinima a
+     * longitudMaxima símbolos.
+     */
+    static List<String> palabrasAleatorias(long semilla, int cantidad, int longitudMinima, int longitudMaxima) {
+        Random aleatorio = new Random(semilla);
+        List<String> palabras = new ArrayList<>(cantidad);
+        for (int r = 0; r < cantidad; r++) {
+            int longitud = longitudMinima + aleatorio.nextInt(longitudMaxima - longitudMinima + 1);
+            StringBuilder sb = new StringBuilder(longitud);
+            for (int i = 0; i < longitud; i++) {
+                sb.append(aleatorio.nextBoolean() ? 'a' : 'b');
+            }
+            palabras.add(sb.toString());
+        }
+        return palabras;
+    }
+}